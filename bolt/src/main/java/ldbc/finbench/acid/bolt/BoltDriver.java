@@ -1,13 +1,20 @@
 package ldbc.finbench.acid.bolt;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.generator.GraphSink;
 import org.neo4j.driver.AuthTokens;
 import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
@@ -15,13 +22,25 @@ import org.neo4j.driver.GraphDatabase;
 import org.neo4j.driver.Logging;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Value;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.summary.ResultSummary;
 
 // Driver for Bolt-compatible graph databases (Memgraph and Neo4j)
 public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Result> {
 
+    // the labels of the nodes, all of them identified by an id property
+    protected static final String[] LABELS = {"Account", "Loan", "Person", "Company"};
+
     protected Driver driver;
+    protected final QuerySummaries querySummaries = new QuerySummaries();
+    protected final QueryProfiles queryProfiles = new QueryProfiles();
+    // first invocation of each distinct query, replayed with PROFILE by profileQueries()
+    protected final ConcurrentMap<String, ProfileCandidate> profileCandidates = new ConcurrentHashMap<>();
+    protected volatile boolean profiling = false;
+    protected boolean indexesCreated = false;
 
     public BoltDriver(String host, int port) {
         Config config = Config.builder().withLogging(Logging.javaUtilLogging(Level.WARNING)).build();
@@ -60,18 +79,146 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
         return tt.run(querySpecification, queryParameters);
     }
 
+    public QuerySummaries getQuerySummaries() {
+        return querySummaries;
+    }
+
+    public QueryProfiles getQueryProfiles() {
+        return queryProfiles;
+    }
+
+    // When enabled, the first execution of every distinct query is remembered for profileQueries().
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    // Runs each remembered query once with PROFILE in its own transaction and rolls it back, so profiling
+    // neither changes the data nor interferes with the concurrent scenario transactions.
+    public QueryProfiles profileQueries() {
+        for (ProfileCandidate candidate : profileCandidates.values()) {
+            final Transaction tt = startTransaction();
+            try {
+                final Result result = tt.run("PROFILE " + candidate.query, candidate.parameters);
+                result.list();
+                final ResultSummary summary = result.consume();
+                queryProfiles.add(candidate.name, candidate.query, summary.hasProfile() ? summary.profile() : null);
+            } finally {
+                abortTransaction(tt);
+            }
+        }
+        profileCandidates.clear();
+        return queryProfiles;
+    }
+
+    // Runs the query, pulls all of its records and records the result summary under the given name.
+    protected List<Record> run(String name, Transaction tt, String query, Map<String, Object> parameters) {
+        if (profiling) {
+            profileCandidates.putIfAbsent(query, new ProfileCandidate(name, query, parameters));
+        }
+        final long start = System.nanoTime();
+        final Result result = tt.run(query, parameters);
+        final long acknowledged = System.nanoTime();
+        final List<Record> records = result.list();
+        final long pulled = System.nanoTime();
+        final ResultSummary summary = result.consume();
+        querySummaries.record(name, acknowledged - start, pulled - acknowledged, summary);
+        return records;
+    }
+
+    protected List<Record> run(String name, Transaction tt, String query) {
+        return run(name, tt, query, ImmutableMap.of());
+    }
+
+    // an index lookup like those of the scenarios, the range scan of the default costs milliseconds on the server
+    @Override
+    public void roundTrip() {
+        final Transaction tt = startTransaction();
+        run("roundTrip", tt, "MATCH (a:Account {id: $accountId}) RETURN a.balance AS balance",
+                ImmutableMap.of("accountId", id(0)));
+        commitTransaction(tt);
+    }
+
     @Override
     public void nukeDatabase() {
         final Transaction tt = startTransaction();
-        tt.run("MATCH (n) DETACH DELETE n");
+        run("nukeDatabase", tt, "MATCH (n) DETACH DELETE n");
         commitTransaction(tt);
+        createIndexes();
+        indexesCreated = true;
+    }
+
+    @Override
+    public boolean supportsNamespaces() {
+        return true;
+    }
+
+    @Override
+    public void nukeNamespace() {
+        if (!indexesCreated) {
+            createIndexes();
+            indexesCreated = true;
+        }
+        final Transaction tt = startTransaction();
+        // luW creates transfers to unlabelled nodes, which are removed together with their source account
+        run("nukeNamespace", tt, "MATCH (a:Account)\n"
+                + "WHERE a.id >= $minId AND a.id <= $maxId\n"
+                + "OPTIONAL MATCH (a)-[:transfer]->(n)\n"
+                + "WHERE NOT n:Account\n"
+                + "DETACH DELETE a, n", namespaceRange());
+        // the other nodes of the background workload and of generated graphs
+        for (String label : LABELS) {
+            if (!"Account".equals(label)) {
+                run("nukeNamespace." + label, tt, "MATCH (n:" + label + ")\n"
+                        + "WHERE n.id >= $minId AND n.id <= $maxId\n"
+                        + "DETACH DELETE n", namespaceRange());
+            }
+        }
+        commitTransaction(tt);
+    }
+
+    protected Map<String, Object> namespaceRange() {
+        return ImmutableMap.of("minId", idBase, "maxId", idBase + NAMESPACE_SIZE - 1);
+    }
+
+    protected Map<String, Object> single(long accountId) {
+        return ImmutableMap.of("accountId", id(accountId));
+    }
+
+    protected Map<String, Object> pair(long account1Id, long account2Id) {
+        return ImmutableMap.of("account1Id", id(account1Id), "account2Id", id(account2Id));
+    }
+
+    // the accounts of the 4-cycle used by OTV and FR
+    protected Map<String, Object> cycle() {
+        return ImmutableMap.of("account1Id", id(1), "account2Id", id(2), "account3Id", id(3), "account4Id", id(4));
+    }
+
+    // Indexes on the id of every label so that lookups and the range-scoped checks do not scan all accounts.
+    // Schema statements cannot share a transaction with data updates, so they run in auto-commit mode.
+    public void createIndexes() {
+        try (Session session = driver.session()) {
+            // Neo4j >= 4.1
+            for (String label : LABELS) {
+                session.run("CREATE INDEX " + label.toLowerCase() + "_id IF NOT EXISTS FOR (n:" + label
+                        + ") ON (n.id)").consume();
+            }
+        } catch (ClientException e) {
+            // Neo4j 3.5 and Memgraph
+            for (String label : LABELS) {
+                try (Session session = driver.session()) {
+                    session.run("CREATE INDEX ON :" + label + "(id)").consume();
+                } catch (ClientException ignored) {
+                    // the index already exists
+                }
+            }
+        }
     }
 
     @Override
     public void atomicityInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, name: 'AliceAcc', transHistory: [100]}),\n"
-                + " (:Account {id: 2, name: 'BobAcc', transHistory: [50, 150]})");
+        run("atomicityInit", tt, "CREATE (:Account {id: $account1Id, name: 'AliceAcc', transHistory: [100]}),\n"
+                + " (:Account {id: $account2Id, name: 'BobAcc', transHistory: [50, 150]})", pair(1, 2));
         commitTransaction(tt);
     }
 
@@ -79,9 +226,9 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public void atomicityC(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        tt.run("MATCH (a1:Account {id: $account1Id})\n"
+        run("atomicityC", tt, "MATCH (a1:Account {id: $account1Id})\n"
                 + "CREATE (a2:Account)\n"
-                + "CREATE (a1)-[t:transfer]->(a2:Account)\n"
+                + "CREATE (a1)-[t:transfer]->(a2)\n"
                 + "SET\n"
                 + "  a1.transHistory = a1.transHistory + [$newTrans],\n"
                 + "  a2.id = $account2Id,\n"
@@ -93,14 +240,15 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Boolean atomicityRB(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        tt.run("MATCH (a1:Account {id: $account1Id})\n"
+        run("atomicityRB.update", tt, "MATCH (a1:Account {id: $account1Id})\n"
                 + "SET a1.transHistory = a1.transHistory + [$newTrans]", parameters);
-        final Result result = tt.run("MATCH (a2:Account {id: $account2Id}) RETURN a2", parameters);
-        if (result.hasNext()) {
+        final List<Record> result = run("atomicityRB.find", tt,
+                "MATCH (a2:Account {id: $account2Id}) RETURN a2", parameters);
+        if (!result.isEmpty()) {
             abortTransaction(tt);
             return false;
         } else {
-            tt.run("CREATE (a2:Account {id: $account2Id, transHistory: []})", parameters);
+            run("atomicityRB.create", tt, "CREATE (a2:Account {id: $account2Id, transHistory: []})", parameters);
             commitTransaction(tt);
             return true;
         }
@@ -110,9 +258,29 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> atomicityCheck() {
         final Transaction tt = startTransaction();
 
-        Result result = tt.run("MATCH (a:Account)\n"
+        final List<Record> result = run("atomicityCheck", tt, "MATCH (a:Account)\n"
                 + "RETURN count(a) AS numAccounts, count(a.name) AS numNames, sum(size(a.transHistory)) AS numTransferred");
-        Record record = result.next();
+        Record record = result.get(0);
+        final long numAccounts = record.get("numAccounts").asLong();
+        final long numNames = record.get("numNames").asLong();
+        final long numTransferred = record.get("numTransferred").asLong();
+
+        commitTransaction(tt);
+
+        return ImmutableMap.of("numAccounts", numAccounts, "numNames", numNames, "numTransferred", numTransferred);
+    }
+
+    @Override
+    public Map<String, Object> atomicityCheck(Map<String, Object> parameters) {
+        final Transaction tt = startTransaction();
+
+        final List<Record> result = run("atomicityCheck.range", tt, "MATCH (a:Account)\n"
+                + "WHERE a.id >= $minId AND a.id <= $maxId\n"
+                + "RETURN count(a) AS numAccounts, count(a.name) AS numNames,\n"
+                + "  sum(size(a.transHistory)) AS numTransferred",
+                parameters);
+        commitTransaction(tt);
+        Record record = result.get(0);
         final long numAccounts = record.get("numAccounts").asLong();
         final long numNames = record.get("numNames").asLong();
         final long numTransferred = record.get("numTransferred").asLong();
@@ -123,8 +291,10 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void g0Init() {
         final Transaction tt = startTransaction();
-        tt.run(
-                "CREATE (:Account {id: 1, versionHistory: [0]})-[:transfer {versionHistory: [0]}]->(:Account {id: 2, versionHistory: [0]})");
+        run("g0Init", tt,
+                "CREATE (:Account {id: $account1Id, versionHistory: [0]})"
+                        + "-[:transfer {versionHistory: [0]}]->(:Account {id: $account2Id, versionHistory: [0]})",
+                pair(1, 2));
         commitTransaction(tt);
     }
 
@@ -132,7 +302,7 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> g0(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        tt.run("MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
+        run("g0", tt, "MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
                 + "SET a1.versionHistory = a1.versionHistory + [$transactionId]\n"
                 + "SET a2.versionHistory = a2.versionHistory + [$transactionId]\n"
                 + "SET t.versionHistory  = t.versionHistory  + [$transactionId]", parameters);
@@ -145,16 +315,19 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> g0check(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        Result result = tt.run("MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
+        final List<Record> result = run("g0check", tt,
+                "MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
                 + "RETURN\n"
                 + "  a1.versionHistory AS a1VersionHistory,\n"
                 + "  t.versionHistory  AS tVersionHistory,\n"
                 + "  a2.versionHistory AS a2VersionHistory", parameters);
-        Record record = result.next();
+        Record record = result.get(0);
         final List<Object> a1VersionHistory = record.get("a1VersionHistory").asList();
         final List<Object> tVersionHistory = record.get("tVersionHistory").asList();
         final List<Object> a2VersionHistory = record.get("a2VersionHistory").asList();
 
+        commitTransaction(tt);
+
         return ImmutableMap.of("a1VersionHistory", a1VersionHistory, "tVersionHistory", tVersionHistory,
                 "a2VersionHistory", a2VersionHistory);
     }
@@ -162,7 +335,7 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void g1aInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, balance: 99})");
+        run("g1aInit", tt, "CREATE (:Account {id: $accountId, balance: 99})", single(1));
         commitTransaction(tt);
     }
 
@@ -171,20 +344,20 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
         final Transaction tt = startTransaction();
 
         // we cannot pass p as a parameter so we pass its internal ID instead
-        final Result result = tt.run("MATCH (a:Account {id: $accountId})\n"
+        final List<Record> result = run("g1aW.find", tt, "MATCH (a:Account {id: $accountId})\n"
                 + "RETURN ID(a) AS internalAId", parameters);
-        if (!result.hasNext()) {
+        if (result.isEmpty()) {
             throw new IllegalStateException("G1a1 Result empty");
         }
-        final Value internalAId = result.next().get("internalAId");
+        final Value internalAId = result.get(0).get("internalAId");
 
-        sleep((Long) parameters.get("sleepTime"));
+        delay((Long) parameters.get("sleepTime"));
 
-        tt.run("MATCH (a:Account)\n"
+        run("g1aW.update", tt, "MATCH (a:Account)\n"
                 + "WHERE ID(a) = $internalAId\n"
                 + "SET a.balance = 200", ImmutableMap.of("internalAId", internalAId));
 
-        sleep((Long) parameters.get("sleepTime"));
+        interleave((Long) parameters.get("sleepTime"));
 
         abortTransaction(tt);
         return ImmutableMap.of();
@@ -194,11 +367,14 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> g1aR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        final Result result = tt.run("MATCH (a:Account {id: $accountId}) RETURN a.balance AS aBalance", parameters);
-        if (!result.hasNext()) {
+        final List<Record> result = run("g1aR", tt,
+                "MATCH (a:Account {id: $accountId}) RETURN a.balance AS aBalance", parameters);
+        if (result.isEmpty()) {
             throw new IllegalStateException("G1a T2 Result empty");
         }
-        final long aBalance = result.next().get("aBalance").asLong();
+        final long aBalance = result.get(0).get("aBalance").asLong();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("aBalance", aBalance);
     }
@@ -206,7 +382,7 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void g1bInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, balance: 99})");
+        run("g1bInit", tt, "CREATE (:Account {id: $accountId, balance: 99})", single(1));
         commitTransaction(tt);
     }
 
@@ -214,9 +390,9 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> g1bW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        tt.run("MATCH (a:Account {id: $accountId}) SET a.balance = $even", parameters);
+        run("g1bW.even", tt, "MATCH (a:Account {id: $accountId}) SET a.balance = $even", parameters);
         sleep((Long) parameters.get("sleepTime"));
-        tt.run("MATCH (a:Account {id: $accountId}) SET a.balance = $odd", parameters);
+        run("g1bW.odd", tt, "MATCH (a:Account {id: $accountId}) SET a.balance = $odd", parameters);
 
         commitTransaction(tt);
         return ImmutableMap.of();
@@ -226,11 +402,14 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> g1bR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        final Result result = tt.run("MATCH (a:Account {id: $accountId}) RETURN a.balance AS aBalance", parameters);
-        if (!result.hasNext()) {
+        final List<Record> result = run("g1bR", tt,
+                "MATCH (a:Account {id: $accountId}) RETURN a.balance AS aBalance", parameters);
+        if (result.isEmpty()) {
             throw new IllegalStateException("G1b T2 Result empty");
         }
-        final long aBalance = result.next().get("aBalance").asLong();
+        final long aBalance = result.get(0).get("aBalance").asLong();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("aBalance", aBalance);
     }
@@ -238,19 +417,20 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void g1cInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, balance: 0}), (:Account {id: 2, balance: 0})");
+        run("g1cInit", tt, "CREATE (:Account {id: $account1Id, balance: 0}), (:Account {id: $account2Id, balance: 0})",
+                pair(1, 2));
         commitTransaction(tt);
     }
 
     @Override
     public Map<String, Object> g1c(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        Result result = tt.run("MATCH (a1:Account {id: $account1Id})\n"
+        final List<Record> result = run("g1c", tt, "MATCH (a1:Account {id: $account1Id})\n"
                 + "SET a1.balance = $transactionId\n"
                 + "WITH count(*) AS dummy\n"
                 + "MATCH (a2:Account {id: $account2Id})\n"
                 + "RETURN a2.balance AS account2Balance\n", parameters);
-        final long account2Balance = result.next().get("account2Balance").asLong();
+        final long account2Balance = result.get(0).get("account2Balance").asLong();
         commitTransaction(tt);
 
         return ImmutableMap.of("account2Balance", account2Balance);
@@ -261,14 +441,14 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void impInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, balance: 1})");
+        run("impInit", tt, "CREATE (:Account {id: $accountId, balance: 1})", single(1));
         commitTransaction(tt);
     }
 
     @Override
     public Map<String, Object> impW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        tt.run("MATCH (a:Account {id: $accountId}) SET a.balance = a.balance + 1 RETURN a", parameters);
+        run("impW", tt, "MATCH (a:Account {id: $accountId}) SET a.balance = a.balance + 1 RETURN a", parameters);
         commitTransaction(tt);
         return ImmutableMap.of();
     }
@@ -277,19 +457,23 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> impR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        final Result result1 = tt.run("MATCH (a:Account {id: $accountId}) RETURN a.balance AS firstRead", parameters);
-        if (!result1.hasNext()) {
+        final List<Record> result1 = run("impR.firstRead", tt,
+                "MATCH (a:Account {id: $accountId}) RETURN a.balance AS firstRead", parameters);
+        if (result1.isEmpty()) {
             throw new IllegalStateException("IMP result1 empty");
         }
-        final long firstRead = result1.next().get("firstRead").asLong();
+        final long firstRead = result1.get(0).get("firstRead").asLong();
 
-        sleep((Long) parameters.get("sleepTime"));
+        interleave((Long) parameters.get("sleepTime"));
 
-        final Result result2 = tt.run("MATCH (a:Account {id: $accountId}) RETURN a.balance AS secondRead", parameters);
-        if (!result2.hasNext()) {
+        final List<Record> result2 = run("impR.secondRead", tt,
+                "MATCH (a:Account {id: $accountId}) RETURN a.balance AS secondRead", parameters);
+        if (result2.isEmpty()) {
             throw new IllegalStateException("IMP result2 empty");
         }
-        final long secondRead = result2.next().get("secondRead").asLong();
+        final long secondRead = result2.get(0).get("secondRead").asLong();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
     }
@@ -299,14 +483,14 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void pmpInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1}), (:Account {id: 2})");
+        run("pmpInit", tt, "CREATE (:Account {id: $account1Id}), (:Account {id: $account2Id})", pair(1, 2));
         commitTransaction(tt);
     }
 
     @Override
     public Map<String, Object> pmpW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        tt.run("MATCH (a1:Account {id: $account1Id}), (a2:Account {id: $account2Id})\n"
+        run("pmpW", tt, "MATCH (a1:Account {id: $account1Id}), (a2:Account {id: $account2Id})\n"
                 + "CREATE (a1)-[:transfer]->(a2)", parameters);
         commitTransaction(tt);
         return ImmutableMap.of();
@@ -316,22 +500,25 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> pmpR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        final Result result1 = tt.run("MATCH (a2:Account {id: $account2Id})<-[:transfer]-(a1:Account)\n"
+        final List<Record> result1 = run("pmpR.firstRead", tt,
+                "MATCH (a2:Account {id: $account2Id})<-[:transfer]-(a1:Account)\n"
                 + "RETURN count(a1) AS firstRead", parameters);
-        if (!result1.hasNext()) {
+        if (result1.isEmpty()) {
             throw new IllegalStateException("PMP result1 empty");
         }
-        final long firstRead = result1.next().get("firstRead").asLong();
+        final long firstRead = result1.get(0).get("firstRead").asLong();
 
-        sleep((Long) parameters.get("sleepTime"));
+        interleave((Long) parameters.get("sleepTime"));
 
-        final Result result2 = tt.run(
+        final List<Record> result2 = run("pmpR.secondRead", tt,
                 "MATCH (a2:Account {id: $account2Id})<-[:transfer]-(a3:Account) RETURN count(a3) AS secondRead",
                 parameters);
-        if (!result2.hasNext()) {
+        if (result2.isEmpty()) {
             throw new IllegalStateException("PMP result2 empty");
         }
-        final long secondRead = result2.next().get("secondRead").asLong();
+        final long secondRead = result2.get(0).get("secondRead").asLong();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
     }
@@ -339,10 +526,10 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void otvInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (a1:Account {id: 1, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 2, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 3, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 4, balance: 0})-[:transfer]->(a1)");
+        run("otvInit", tt, "CREATE (a1:Account {id: $account1Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account2Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account3Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account4Id, balance: 0})-[:transfer]->(a1)", cycle());
         commitTransaction(tt);
     }
 
@@ -350,10 +537,10 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> otvW(Map<String, Object> parameters) {
         Random random = new Random();
         for (int i = 0; i < 100; i++) {
-            long accountId = random.nextInt((int) parameters.get("cycleSize") + 1);
+            long accountId = id(random.nextInt((int) parameters.get("cycleSize") + 1));
 
             final Transaction tt = startTransaction();
-            tt.run(
+            run("otvW", tt,
                     "MATCH path = (n:Account {id: $accountId})-[:transfer*..4]->(n)\n"
                             + " UNWIND nodes(path)[0..4] as a\n"
                             + " SET a.balance = a.balance + 1\n",
@@ -366,25 +553,31 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public Map<String, Object> otvR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        final Result result1 = tt.run(
+        final List<Record> result1 = run("otvR.firstRead", tt,
                 "MATCH p1 = (a1:Account {id: $accountId})-[:transfer*..4]->(a1)\n"
-                        + "RETURN extract(a in nodes(p1) | a.balance) AS firstRead",
+                        + "UNWIND nodes(p1) AS a\n"
+                        + "WITH p1, collect(a.balance) AS firstRead\n"
+                        + "RETURN firstRead",
                 parameters);
-        if (!result1.hasNext()) {
+        if (result1.isEmpty()) {
             throw new IllegalStateException("OTV2 result1 empty");
         }
-        final List<Object> firstRead = result1.next().get("firstRead").asList();
+        final List<Object> firstRead = result1.get(0).get("firstRead").asList();
 
-        sleep((Long) parameters.get("sleepTime"));
+        interleave((Long) parameters.get("sleepTime"));
 
-        final Result result2 = tt.run(
+        final List<Record> result2 = run("otvR.secondRead", tt,
                 "MATCH p2 = (a2:Account {id: $accountId})-[:transfer*..4]->(a2)\n"
-                        + "RETURN extract(a in nodes(p2) | a.balance) AS secondRead",
+                        + "UNWIND nodes(p2) AS a\n"
+                        + "WITH p2, collect(a.balance) AS secondRead\n"
+                        + "RETURN secondRead",
                 parameters);
-        if (!result2.hasNext()) {
+        if (result2.isEmpty()) {
             throw new IllegalStateException("OTV2 result2 empty");
         }
-        final List<Object> secondRead = result2.next().get("secondRead").asList();
+        final List<Object> secondRead = result2.get(0).get("secondRead").asList();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
     }
@@ -392,17 +585,17 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void frInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (a1:Account {id: 1, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 2, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 3, balance: 0})-[:transfer]->"
-                + "  (:Account {id: 4, balance: 0})-[:transfer]->(a1)");
+        run("frInit", tt, "CREATE (a1:Account {id: $account1Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account2Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account3Id, balance: 0})-[:transfer]->"
+                + "  (:Account {id: $account4Id, balance: 0})-[:transfer]->(a1)", cycle());
         commitTransaction(tt);
     }
 
     @Override
     public Map<String, Object> frW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        tt.run(
+        run("frW", tt,
                 "MATCH path = (n:Account {id: $accountId})-[:transfer*..4]->(n)\n"
                         + " UNWIND nodes(path)[0..4] as a\n"
                         + " SET a.balance = a.balance + 1\n",
@@ -416,29 +609,34 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> frR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        // Neo4j: Extract is no longer supported in neo4j >= 5.x, use list comprehension
-        // instead
-        // Memgraph: Not yet implemented: atom expression '[a IN
-        // nodes(path1)|a.balance]'
-        final Result result1 = tt.run(
+        // Neo4j >= 4 no longer supports extract() and Memgraph does not support list comprehensions
+        // ([a IN nodes(p1) | a.balance]), so the balances are collected after an UNWIND. Grouping by the path keeps
+        // the result empty when there is no cycle.
+        final List<Record> result1 = run("frR.firstRead", tt,
                 "MATCH p1 = (a1:Account {id: $accountId})-[:transfer*..4]->(a1)\n"
-                        + "RETURN extract(a in nodes(p1) | a.balance) AS firstRead",
+                        + "UNWIND nodes(p1) AS a\n"
+                        + "WITH p1, collect(a.balance) AS firstRead\n"
+                        + "RETURN firstRead",
                 parameters);
-        if (!result1.hasNext()) {
+        if (result1.isEmpty()) {
             throw new IllegalStateException("FR2 result1 empty");
         }
-        final List<Object> firstRead = result1.next().get("firstRead").asList();
+        final List<Object> firstRead = result1.get(0).get("firstRead").asList();
 
-        sleep((Long) parameters.get("sleepTime"));
+        interleave((Long) parameters.get("sleepTime"));
 
-        final Result result2 = tt.run(
+        final List<Record> result2 = run("frR.secondRead", tt,
                 "MATCH p2 = (a2:Account {id: $accountId})-[:transfer*..4]->(a2)\n"
-                        + "RETURN extract(a in nodes(p2) | a.balance) AS secondRead",
+                        + "UNWIND nodes(p2) AS a\n"
+                        + "WITH p2, collect(a.balance) AS secondRead\n"
+                        + "RETURN secondRead",
                 parameters);
-        if (!result2.hasNext()) {
+        if (result2.isEmpty()) {
             throw new IllegalStateException("FR2 result2 empty");
         }
-        final List<Object> secondRead = result2.next().get("secondRead").asList();
+        final List<Object> secondRead = result2.get(0).get("secondRead").asList();
+
+        commitTransaction(tt);
 
         return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
     }
@@ -448,17 +646,17 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public void luInit() {
         final Transaction tt = startTransaction();
-        tt.run("CREATE (:Account {id: 1, numTransferred: 0})");
+        run("luInit", tt, "CREATE (:Account {id: $accountId, numTransferred: 0})", single(1));
         commitTransaction(tt);
     }
 
     @Override
     public Map<String, Object> luW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        tt.run("MATCH (a1:Account {id: 1})\n"
+        run("luW", tt, "MATCH (a1:Account {id: $account1Id})\n"
                 + "CREATE (a1)-[:transfer]->(a2)\n"
                 + "SET a1.numTransferred = a1.numTransferred + 1\n"
-                + "RETURN a1.numTransferred\n");
+                + "RETURN a1.numTransferred\n", parameters);
         commitTransaction(tt);
         return ImmutableMap.of();
     }
@@ -466,14 +664,16 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     @Override
     public Map<String, Object> luR(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        final Result result = tt.run("MATCH (a:Account {id: $accountId})\n"
+        final List<Record> result = run("luR", tt, "MATCH (a:Account {id: $accountId})\n"
                 + "OPTIONAL MATCH (a)-[t:transfer]->()\n"
                 + "WITH a, count(t) AS numTransferEdges\n"
                 + "RETURN numTransferEdges,\n"
                 + "       a.numTransferred AS numTransferred\n", parameters);
-        final Record record = result.next();
+        final Record record = result.get(0);
         long numTransferEdges = record.get("numTransferEdges").asLong();
         long numTransferred = record.get("numTransferred").asLong();
+        commitTransaction(tt);
+
         return ImmutableMap.of("numTransferEdges", numTransferEdges, "numTransferred", numTransferred);
     }
 
@@ -483,8 +683,9 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
 
         // create 10 pairs of accounts with indices (1,2), ..., (19,20)
         for (int i = 1; i <= 10; i++) {
-            tt.run("CREATE (:Account {id: $account1Id, balance: 70}), (:Account {id: $account2Id, balance: 80})",
-                    ImmutableMap.of("account1Id", 2 * i - 1, "account2Id", 2 * i));
+            run("wsInit", tt,
+                    "CREATE (:Account {id: $account1Id, balance: 70}), (:Account {id: $account2Id, balance: 80})",
+                    pair(2 * i - 1, 2 * i));
         }
 
         commitTransaction(tt);
@@ -494,46 +695,236 @@ public class BoltDriver extends TestDriver<Transaction, Map<String, Object>, Res
     public Map<String, Object> wsW(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
 
-        final Result result = tt.run(
+        final List<Record> result = run("wsW.check", tt,
                 "MATCH (a1:Account {id: $account1Id}), (a2:Account {id: $account2Id})\n"
                         + "WHERE a1.balance + a2.balance >= 100\n"
                         + "RETURN a1, a2",
                 parameters);
 
-        if (result.hasNext()) {
-            sleep((Long) parameters.get("sleepTime"));
+        if (!result.isEmpty()) {
+            interleave((Long) parameters.get("sleepTime"));
 
             long accountId = new Random().nextBoolean()
                     ? (long) parameters.get("account1Id")
                     : (long) parameters.get("account2Id");
 
-            tt.run("MATCH (a:Account {id: $accountId})\n"
+            run("wsW.withdraw", tt, "MATCH (a:Account {id: $accountId})\n"
                     + "SET a.balance = a.balance - 100",
                     ImmutableMap.of("accountId", accountId));
-            commitTransaction(tt);
         }
+        commitTransaction(tt);
 
         return ImmutableMap.of();
     }
 
     @Override
     public Map<String, Object> wsR(Map<String, Object> parameters) {
+        final List<Map<String, Object>> violations = wsViolations(parameters);
+        return violations.isEmpty() ? ImmutableMap.of() : violations.get(0);
+    }
+
+    @Override
+    public List<Map<String, Object>> wsViolations(Map<String, Object> parameters) {
         final Transaction tt = startTransaction();
-        // we select pairs of accounts using (id, id+1) pairs
-        final Result result = tt.run("MATCH (a1:Account), (a2:Account {id: a1.id+1})\n"
-                + "WHERE a1.balance + a2.balance <= 0 and a1.id % 2 = 1 \n"
-                + "RETURN a1.id AS a1id, a1.balance AS a1balance, a2.id AS a2id, a2.balance AS a2balance");
-
-        if (result.hasNext()) {
-            Record record = result.next();
-            return ImmutableMap.of(
-                    "a1id", record.get("a1id"),
-                    "a1balance", record.get("a1balance"),
-                    "a2id", record.get("a2id"),
-                    "a2balance", record.get("a2balance"));
-        } else {
-            return ImmutableMap.of();
+        // we select pairs of accounts using (id, id+1) pairs with odd id in the current namespace. Instead of
+        // joining every account with every other one, each account is grouped by its pair key (id + 1) / 2 in a
+        // single linear scan.
+        final List<Record> result = run("wsViolations", tt, "MATCH (a:Account)\n"
+                + "WHERE a.id >= $minId AND a.id <= $maxId AND a.balance IS NOT NULL\n"
+                + "WITH (a.id + 1) / 2 AS pair,\n"
+                + "     sum(CASE a.id % 2 WHEN 1 THEN a.balance ELSE 0 END) AS a1balance,\n"
+                + "     sum(CASE a.id % 2 WHEN 0 THEN a.balance ELSE 0 END) AS a2balance,\n"
+                + "     count(a) AS numAccounts\n"
+                + "WHERE numAccounts = 2 AND a1balance + a2balance <= 0\n"
+                + "RETURN 2 * pair - 1 AS a1id, a1balance, 2 * pair AS a2id, a2balance\n"
+                + "ORDER BY a1id", namespaceRange());
+        commitTransaction(tt);
+
+        final List<Map<String, Object>> violations = new ArrayList<>(result.size());
+        for (Record record : result) {
+            violations.add(ImmutableMap.of(
+                    "a1id", record.get("a1id").asLong(),
+                    "a1balance", record.get("a1balance").asLong(),
+                    "a2id", record.get("a2id").asLong(),
+                    "a2balance", record.get("a2balance").asLong()));
+        }
+        return violations;
+    }
+
+    // Runs a write transaction of the background workload. A failed statement (e.g. a deadlock under contention)
+    // rolls the transaction back and releases its connection.
+    protected void write(String name, String query, Map<String, Object> parameters) {
+        try (Transaction tt = startTransaction()) {
+            run(name, tt, query, parameters);
+            commitTransaction(tt);
         }
     }
 
+    @Override
+    public void workloadInit(Map<String, Object> parameters) {
+        final long numAccounts = ((Number) parameters.get("numAccounts")).longValue();
+        final long numLoans = ((Number) parameters.get("numLoans")).longValue();
+        write("workloadInit", "UNWIND range($firstAccountId, $lastAccountId) AS id\n"
+                + "CREATE (:Account {id: id, balance: $balance})", ImmutableMap.of(
+                "firstAccountId", id(0), "lastAccountId", id(numAccounts - 1), "balance", parameters.get("balance")));
+        write("workloadInit.loans", "UNWIND range($firstLoanId, $lastLoanId) AS id\n"
+                + "CREATE (:Loan {id: id, loanAmount: $loanAmount, balance: $loanAmount})", ImmutableMap.of(
+                "firstLoanId", id(numAccounts), "lastLoanId", id(numAccounts + numLoans - 1),
+                "loanAmount", parameters.get("loanAmount")));
+    }
+
+    @Override
+    public void transfer(Map<String, Object> parameters) {
+        write("transfer", "MATCH (a1:Account {id: $account1Id}), (a2:Account {id: $account2Id})\n"
+                + "SET a1.balance = a1.balance - $amount, a2.balance = a2.balance + $amount\n"
+                + "CREATE (a1)-[:transfer {amount: $amount, timestamp: $timestamp}]->(a2)", parameters);
+    }
+
+    @Override
+    public void deposit(Map<String, Object> parameters) {
+        write("deposit", "MATCH (l:Loan {id: $loanId}), (a:Account {id: $accountId})\n"
+                + "SET l.balance = l.balance - $amount, a.balance = a.balance + $amount\n"
+                + "CREATE (l)-[:deposit {amount: $amount, timestamp: $timestamp}]->(a)", parameters);
+    }
+
+    @Override
+    public void withdraw(Map<String, Object> parameters) {
+        write("withdraw", "MATCH (a1:Account {id: $account1Id}), (a2:Account {id: $account2Id})\n"
+                + "SET a1.balance = a1.balance - $amount, a2.balance = a2.balance + $amount\n"
+                + "CREATE (a1)-[:withdraw {amount: $amount, timestamp: $timestamp}]->(a2)", parameters);
+    }
+
+    @Override
+    public void repay(Map<String, Object> parameters) {
+        write("repay", "MATCH (a:Account {id: $accountId}), (l:Loan {id: $loanId})\n"
+                + "SET a.balance = a.balance - $amount, l.balance = l.balance + $amount\n"
+                + "CREATE (a)-[:repay {amount: $amount, timestamp: $timestamp}]->(l)", parameters);
+    }
+
+    // Labels and types are spliced into the bulk load queries, they cannot be parameters.
+    private static String identifier(String name) {
+        if (!name.matches("[A-Za-z][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid label or type: " + name);
+        }
+        return name;
+    }
+
+    @Override
+    public void bulkLoadNodes(String label, List<Map<String, Object>> nodes) {
+        write("bulkLoadNodes." + label, "UNWIND $nodes AS properties\n"
+                + "CREATE (n:" + identifier(label) + ")\n"
+                + "SET n = properties", ImmutableMap.of("nodes", nodes));
+    }
+
+    @Override
+    public void bulkLoadEdges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+        write("bulkLoadEdges." + type, "UNWIND $edges AS e\n"
+                + "MATCH (a:" + identifier(fromLabel) + " {id: e.fromId})\n"
+                + "MATCH (b:" + identifier(toLabel) + " {id: e.toId})\n"
+                + "CREATE (a)-[r:" + identifier(type) + "]->(b)\n"
+                + "SET r = e.properties", ImmutableMap.of("edges", edges));
+    }
+
+    // Snapshots
+
+    // the number of nodes listed per query
+    private static final int DUMP_BATCH = 10_000;
+
+    @Override
+    public boolean supportsSnapshots() {
+        return true;
+    }
+
+    @Override
+    public void dumpNamespace(GraphSink sink) {
+        final long maxId = getIdBase() + NAMESPACE_SIZE - 1;
+        for (String label : LABELS) {
+            // pages through the nodes by id, the index makes every page a range scan
+            long after = getIdBase() - 1;
+            while (true) {
+                final Transaction tt = startTransaction();
+                final List<Record> page = run("dumpNamespace.nodes", tt, "MATCH (n:" + label + ")\n"
+                        + "WHERE n.id > $after AND n.id <= $maxId\n"
+                        + "RETURN properties(n) AS properties ORDER BY n.id LIMIT $limit",
+                        ImmutableMap.of("after", after, "maxId", maxId, "limit", DUMP_BATCH));
+                commitTransaction(tt);
+                if (page.isEmpty()) {
+                    break;
+                }
+                final List<Map<String, Object>> nodes = new ArrayList<>(page.size());
+                for (Record record : page) {
+                    final Map<String, Object> properties = new HashMap<>(record.get("properties").asMap());
+                    after = (Long) properties.get("id");
+                    properties.put("id", after - getIdBase());
+                    nodes.add(properties);
+                }
+                sink.nodes(label, nodes);
+            }
+        }
+        for (String label : LABELS) {
+            // the edges of a page of source nodes, a source without edges has a single row with null columns
+            final Map<List<String>, List<Map<String, Object>>> batches = new LinkedHashMap<>();
+            long after = getIdBase() - 1;
+            while (true) {
+                final Transaction tt = startTransaction();
+                final List<Record> page = run("dumpNamespace.edges", tt, "MATCH (a:" + label + ")\n"
+                        + "WHERE a.id > $after AND a.id <= $maxId\n"
+                        + "WITH a ORDER BY a.id LIMIT $limit\n"
+                        + "OPTIONAL MATCH (a)-[r]->(b)\n"
+                        + "RETURN a.id AS fromId, type(r) AS type, labels(b) AS toLabels, b.id AS toId,\n"
+                        + "  properties(r) AS properties",
+                        ImmutableMap.of("after", after, "maxId", maxId, "limit", DUMP_BATCH));
+                commitTransaction(tt);
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Record record : page) {
+                    final long fromId = record.get("fromId").asLong();
+                    after = Math.max(after, fromId);
+                    if (record.get("toId").isNull() || record.get("toId").asLong() < getIdBase()
+                            || record.get("toId").asLong() > maxId) {
+                        continue;
+                    }
+                    final String toLabel = label(record.get("toLabels").asList(Value::asString));
+                    if (toLabel == null) {
+                        continue;
+                    }
+                    final Map<String, Object> edge = new HashMap<>(4);
+                    edge.put("fromId", fromId - getIdBase());
+                    edge.put("toId", record.get("toId").asLong() - getIdBase());
+                    edge.put("properties", record.get("properties").asMap());
+                    final List<String> key = ImmutableList.of(record.get("type").asString(), toLabel);
+                    final List<Map<String, Object>> batch = batches.computeIfAbsent(key, k -> new ArrayList<>());
+                    batch.add(edge);
+                    if (batch.size() == DUMP_BATCH) {
+                        sink.edges(label, key.get(0), key.get(1), batch);
+                        batches.remove(key);
+                    }
+                }
+            }
+            batches.forEach((key, batch) -> sink.edges(label, key.get(0), key.get(1), batch));
+        }
+    }
+
+    // the first of the labels of a node that the driver loads and dumps, null if there is none
+    private static String label(List<String> labels) {
+        for (String label : LABELS) {
+            if (labels.contains(label)) {
+                return label;
+            }
+        }
+        return null;
+    }
+
+    protected static class ProfileCandidate {
+        final String name;
+        final String query;
+        final Map<String, Object> parameters;
+
+        ProfileCandidate(String name, String query, Map<String, Object> parameters) {
+            this.name = name;
+            this.query = query;
+            this.parameters = ImmutableMap.copyOf(parameters);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package ldbc.finbench.acid.bolt;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.neo4j.driver.summary.ProfiledPlan;
+
+// Profiled plans of the distinct queries executed by the scenarios, keyed by query name.
+public class QueryProfiles {
+
+    private final Map<String, Profile> profiles = new TreeMap<>();
+
+    public synchronized void add(String name, String query, ProfiledPlan plan) {
+        profiles.put(name, new Profile(query, plan));
+    }
+
+    public synchronized Map<String, Profile> profiles() {
+        return new TreeMap<>(profiles);
+    }
+
+    public synchronized String report() {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Profile> e : profiles.entrySet()) {
+            final Profile profile = e.getValue();
+            sb.append(String.format("== %s: %d db hits, %d rows%n", e.getKey(), profile.getDbHits(),
+                    profile.getRows()));
+            sb.append(profile.getQuery()).append(System.lineSeparator());
+            if (profile.getPlan() == null) {
+                sb.append("(no profile returned)").append(System.lineSeparator());
+            } else {
+                appendPlan(sb, profile.getPlan(), 0);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendPlan(StringBuilder sb, ProfiledPlan plan, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(String.format("+%s db hits: %d, rows: %d, identifiers: %s%n", plan.operatorType(), plan.dbHits(),
+                plan.records(), plan.identifiers()));
+        for (ProfiledPlan child : plan.children()) {
+            appendPlan(sb, child, depth + 1);
+        }
+    }
+
+    static long totalDbHits(ProfiledPlan plan) {
+        long dbHits = plan.dbHits();
+        for (ProfiledPlan child : plan.children()) {
+            dbHits += totalDbHits(child);
+        }
+        return dbHits;
+    }
+
+    public static class Profile {
+        private final String query;
+        private final ProfiledPlan plan;
+
+        Profile(String query, ProfiledPlan plan) {
+            this.query = query;
+            this.plan = plan;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        // null if the database did not return a profile (e.g. Memgraph returns it as records)
+        public ProfiledPlan getPlan() {
+            return plan;
+        }
+
+        public long getDbHits() {
+            return plan == null ? 0 : totalDbHits(plan);
+        }
+
+        public long getRows() {
+            return plan == null ? 0 : plan.records();
+        }
+    }
+}
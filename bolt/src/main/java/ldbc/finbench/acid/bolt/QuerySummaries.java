@@ -0,0 +1,109 @@
+package ldbc.finbench.acid.bolt;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.neo4j.driver.summary.ResultSummary;
+import org.neo4j.driver.summary.SummaryCounters;
+
+// Aggregates client-measured latency and server-reported result summaries per named query.
+// The client time minus the server time (resultAvailableAfter + resultConsumedAfter) is the share
+// spent on the network and on decoding records in the driver.
+public class QuerySummaries {
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    public synchronized void record(String name, long runNanos, long pullNanos, ResultSummary summary) {
+        entries.computeIfAbsent(name, k -> new Entry()).add(runNanos, pullNanos, summary);
+    }
+
+    public synchronized Map<String, Entry> entries() {
+        return new TreeMap<>(entries);
+    }
+
+    public synchronized String report() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %7s %10s %10s %10s %10s %10s %8s %8s %8s%n",
+                "query", "count", "client ms", "run ms", "pull ms", "server ms", "net ms",
+                "nodes+", "rels+", "props"));
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            final Entry entry = e.getValue();
+            sb.append(String.format("%-24s %7d %10.3f %10.3f %10.3f %10.3f %10.3f %8d %8d %8d%n",
+                    e.getKey(), entry.count,
+                    entry.meanClientMillis(), entry.meanRunMillis(), entry.meanPullMillis(),
+                    entry.meanServerMillis(), entry.meanClientMillis() - entry.meanServerMillis(),
+                    entry.nodesCreated, entry.relationshipsCreated, entry.propertiesSet));
+        }
+        return sb.toString();
+    }
+
+    public static class Entry {
+        long count;
+        // time until the server acknowledged the query, i.e. until tt.run() returned
+        long runNanos;
+        // time spent pulling and decoding the records
+        long pullNanos;
+        long resultAvailableAfterMillis;
+        long resultConsumedAfterMillis;
+        long nodesCreated;
+        long nodesDeleted;
+        long relationshipsCreated;
+        long relationshipsDeleted;
+        long propertiesSet;
+
+        void add(long runNanos, long pullNanos, ResultSummary summary) {
+            count++;
+            this.runNanos += runNanos;
+            this.pullNanos += pullNanos;
+            // the server reports -1 when the timing is not available
+            resultAvailableAfterMillis += Math.max(0, summary.resultAvailableAfter(TimeUnit.MILLISECONDS));
+            resultConsumedAfterMillis += Math.max(0, summary.resultConsumedAfter(TimeUnit.MILLISECONDS));
+            final SummaryCounters counters = summary.counters();
+            nodesCreated += counters.nodesCreated();
+            nodesDeleted += counters.nodesDeleted();
+            relationshipsCreated += counters.relationshipsCreated();
+            relationshipsDeleted += counters.relationshipsDeleted();
+            propertiesSet += counters.propertiesSet();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double meanRunMillis() {
+            return count == 0 ? 0 : runNanos / 1e6 / count;
+        }
+
+        public double meanPullMillis() {
+            return count == 0 ? 0 : pullNanos / 1e6 / count;
+        }
+
+        public double meanClientMillis() {
+            return meanRunMillis() + meanPullMillis();
+        }
+
+        public double meanServerMillis() {
+            return count == 0 ? 0 : (double) (resultAvailableAfterMillis + resultConsumedAfterMillis) / count;
+        }
+
+        public long getNodesCreated() {
+            return nodesCreated;
+        }
+
+        public long getNodesDeleted() {
+            return nodesDeleted;
+        }
+
+        public long getRelationshipsCreated() {
+            return relationshipsCreated;
+        }
+
+        public long getRelationshipsDeleted() {
+            return relationshipsDeleted;
+        }
+
+        public long getPropertiesSet() {
+            return propertiesSet;
+        }
+    }
+}
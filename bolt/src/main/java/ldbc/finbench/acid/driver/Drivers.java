@@ -0,0 +1,26 @@
+package ldbc.finbench.acid.driver;
+
+import ldbc.finbench.acid.bolt.BoltDriver;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+
+// Creates the driver of a target given on the command line of the prober, the sweep and the generator.
+public final class Drivers {
+
+    private Drivers() {
+    }
+
+    // reference:<isolation level> for the reference engine or bolt:<host>:<port> for a Bolt database
+    public static TestDriver<?, ?, ?> create(String target) {
+        final String[] parts = target.split(":");
+        switch (parts[0]) {
+            case "reference":
+                return new ReferenceDriver(IsolationLevel.valueOf(parts[1]));
+            case "bolt":
+                return new BoltDriver(parts[1], Integer.parseInt(parts[2]));
+            default:
+                throw new IllegalArgumentException("Unknown target " + target
+                        + ", expected reference:<isolation level> or bolt:<host>:<port>");
+        }
+    }
+}
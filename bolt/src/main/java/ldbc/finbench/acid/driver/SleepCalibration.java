@@ -0,0 +1,69 @@
+package ldbc.finbench.acid.driver;
+
+import java.util.Arrays;
+
+// Picks the sleep time of the scenarios from the measured round-trip latency of a driver instead of a constant
+// 250 ms. A scenario sleeps so that the conflicting transactions execute meanwhile; each of them takes a few round
+// trips, so the sleep time covers ROUND_TRIPS round trips at the 99th percentile of the latency, but at least
+// MIN_SLEEP_MILLIS to absorb thread scheduling and garbage collection pauses of the client.
+public final class SleepCalibration {
+
+    // twice the round trips of a conflicting transaction: begin, one or two queries, commit
+    public static final int ROUND_TRIPS = 8;
+    public static final long MIN_SLEEP_MILLIS = 10;
+    public static final int DEFAULT_SAMPLES = 200;
+    // round trips that are not measured, they open connections and warm up caches and query plans
+    private static final int WARMUP = 20;
+
+    // sorted, in nanoseconds
+    private final long[] latencies;
+    private final long sleepMillis;
+
+    SleepCalibration(long[] latencies) {
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+        final double overlapMillis = ROUND_TRIPS * latencyPercentile(0.99) / 1e6;
+        this.sleepMillis = Math.max(MIN_SLEEP_MILLIS, (long) Math.ceil(overlapMillis));
+    }
+
+    public static SleepCalibration calibrate(TestDriver<?, ?, ?> driver) {
+        return calibrate(driver, DEFAULT_SAMPLES);
+    }
+
+    // Measures the latency of the given number of round trips in the current namespace of the driver.
+    public static SleepCalibration calibrate(TestDriver<?, ?, ?> driver, int samples) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("The number of samples must be positive: " + samples);
+        }
+        for (int i = 0; i < WARMUP; i++) {
+            driver.roundTrip();
+        }
+        final long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            final long start = System.nanoTime();
+            driver.roundTrip();
+            latencies[i] = System.nanoTime() - start;
+        }
+        return new SleepCalibration(latencies);
+    }
+
+    public long getSleepMillis() {
+        return sleepMillis;
+    }
+
+    public int getSamples() {
+        return latencies.length;
+    }
+
+    // the latency in nanoseconds that the given fraction of the round trips did not exceed
+    public long latencyPercentile(double p) {
+        final int rank = (int) Math.ceil(p * latencies.length);
+        return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("round trip p50 %.3f ms, p99 %.3f ms over %d samples, sleep time %d ms",
+                latencyPercentile(0.5) / 1e6, latencyPercentile(0.99) / 1e6, latencies.length, sleepMillis);
+    }
+}
@@ -0,0 +1,107 @@
+package ldbc.finbench.acid.fixture;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.generator.GraphSink;
+
+// Builds the initial graph of a scenario once and restores it from a snapshot afterwards. The first restore of a
+// fixture runs its init in the (empty) current namespace and dumps the namespace into a fixture file in the cache
+// directory; every later restore, in this or a later run, bulk loads the file into the current namespace instead.
+// The file holds ids relative to the namespace, so a snapshot restores into any namespace and one snapshot serves
+// every test and probe of the fixture. The files are per driver class; they must be deleted when an init changes.
+// Drivers that do not support snapshots (TestDriver.supportsSnapshots) run the init every time.
+public final class FixtureCache {
+
+    private final Path directory;
+    private final AtomicLong built = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+
+    public FixtureCache(Path directory) {
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the cache in the directory of -Dacid.fixtures, null if the property is not set
+    public static FixtureCache fromProperty() {
+        final String directory = System.getProperty("acid.fixtures");
+        return directory == null ? null : new FixtureCache(Paths.get(directory));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // the fixture file of the driver, the name is made of letters, digits, '-' and '_'
+    public Path file(TestDriver<?, ?, ?> driver, String name) {
+        if (!name.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid fixture name " + name);
+        }
+        return directory.resolve(driver.getClass().getSimpleName() + "-" + name + ".fixture");
+    }
+
+    // Creates the fixture in the current namespace of the driver, which must be empty: from its snapshot if there
+    // is one, otherwise by running init and taking the snapshot.
+    public void restore(TestDriver<?, ?, ?> driver, String name, Runnable init) {
+        final Path file = file(driver, name);
+        if (!driver.supportsSnapshots()) {
+            init.run();
+            built.incrementAndGet();
+            return;
+        }
+        if (Files.exists(file)) {
+            FixtureReader.replay(file, GraphSink.of(driver), id -> driver.getIdBase() + id);
+            restored.incrementAndGet();
+            return;
+        }
+        init.run();
+        built.incrementAndGet();
+        snapshot(driver, file);
+    }
+
+    // Dumps the current namespace into the file. The dump goes to a temporary file that is moved into place when it
+    // is complete, so concurrent snapshots of one fixture and interrupted ones never leave a partial file.
+    private void snapshot(TestDriver<?, ?, ?> driver, Path file) {
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FixtureWriter writer = new FixtureWriter(temporary)) {
+                driver.dumpNamespace(writer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    // the temporary file is left behind, it is never read
+                }
+            }
+        }
+    }
+
+    // the number of fixtures built by their init
+    public long getBuilt() {
+        return built.get();
+    }
+
+    // the number of fixtures restored from a snapshot
+    public long getRestored() {
+        return restored.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("fixture cache %s: %d built, %d restored", directory, built.get(), restored.get());
+    }
+}
@@ -0,0 +1,120 @@
+package ldbc.finbench.acid.fixture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+import ldbc.finbench.acid.generator.GraphSink;
+
+// Replays a fixture file written by FixtureWriter into a sink, batch by batch as it was written, translating the ids
+// of the nodes and of the endpoints of the edges. Only one batch is held in memory at a time.
+public final class FixtureReader {
+
+    private final DataInputStream in;
+
+    private FixtureReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    public static void replay(Path file, GraphSink sink, LongUnaryOperator ids) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FixtureWriter.MAGIC) {
+                throw new IllegalArgumentException(file + " is not a fixture file");
+            }
+            final int version = in.readInt();
+            if (version != FixtureWriter.VERSION) {
+                throw new IllegalArgumentException(file + " has version " + version + ", expected "
+                        + FixtureWriter.VERSION);
+            }
+            new FixtureReader(in).replay(sink, ids);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(GraphSink sink, LongUnaryOperator ids) throws IOException {
+        while (true) {
+            final byte kind = in.readByte();
+            if (kind == FixtureWriter.END) {
+                return;
+            } else if (kind == FixtureWriter.NODES) {
+                final String label = readString();
+                final int count = in.readInt();
+                final List<Map<String, Object>> nodes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final Map<String, Object> node = readProperties();
+                    if (node.get("id") != null) {
+                        node.put("id", ids.applyAsLong(((Number) node.get("id")).longValue()));
+                    }
+                    nodes.add(node);
+                }
+                sink.nodes(label, nodes);
+            } else if (kind == FixtureWriter.EDGES) {
+                final String fromLabel = readString();
+                final String type = readString();
+                final String toLabel = readString();
+                final int count = in.readInt();
+                final List<Map<String, Object>> edges = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final Map<String, Object> edge = new HashMap<>(4);
+                    edge.put("fromId", ids.applyAsLong(in.readLong()));
+                    edge.put("toId", ids.applyAsLong(in.readLong()));
+                    edge.put("properties", readProperties());
+                    edges.add(edge);
+                }
+                sink.edges(fromLabel, type, toLabel, edges);
+            } else {
+                throw new IOException("Corrupt fixture file, unknown batch " + kind);
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Object> readProperties() throws IOException {
+        final int count = in.readInt();
+        final Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String name = readString();
+            properties.put(name, readValue());
+        }
+        return properties;
+    }
+
+    private Object readValue() throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case FixtureWriter.NULL:
+                return null;
+            case FixtureWriter.BOOLEAN:
+                return in.readBoolean();
+            case FixtureWriter.LONG:
+                return in.readLong();
+            case FixtureWriter.DOUBLE:
+                return in.readDouble();
+            case FixtureWriter.STRING:
+                return readString();
+            case FixtureWriter.LIST:
+                final int size = in.readInt();
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            default:
+                throw new IOException("Corrupt fixture file, unknown value type " + tag);
+        }
+    }
+}
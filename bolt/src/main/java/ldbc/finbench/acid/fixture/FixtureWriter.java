@@ -0,0 +1,139 @@
+package ldbc.finbench.acid.fixture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import ldbc.finbench.acid.generator.GraphSink;
+
+// Writes the batches of a graph to a fixture file, a binary stream that FixtureReader replays into the bulk load path
+// of a driver. The file is a header followed by one record per batch:
+//
+//   file   = MAGIC VERSION batch* END
+//   batch  = NODES label count node*  |  EDGES fromLabel type toLabel count edge*
+//   node   = properties
+//   edge   = fromId toId properties
+//   properties = count (name value)*
+//
+// Strings are UTF-8 with their length, ids and counts are written as is, and every value starts with a tag of its
+// type. The ids are written as the sink gets them; the reader translates them.
+public final class FixtureWriter implements GraphSink, AutoCloseable {
+
+    static final int MAGIC = 0x46424658;
+    static final int VERSION = 1;
+
+    static final byte END = 0;
+    static final byte NODES = 1;
+    static final byte EDGES = 2;
+
+    static final byte NULL = 0;
+    static final byte BOOLEAN = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+    static final byte LIST = 5;
+
+    private final DataOutputStream out;
+
+    public FixtureWriter(Path file) {
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void nodes(String label, List<Map<String, Object>> nodes) {
+        try {
+            out.writeByte(NODES);
+            writeString(label);
+            out.writeInt(nodes.size());
+            for (Map<String, Object> node : nodes) {
+                writeProperties(node);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+        try {
+            out.writeByte(EDGES);
+            writeString(fromLabel);
+            writeString(type);
+            writeString(toLabel);
+            out.writeInt(edges.size());
+            for (Map<String, Object> edge : edges) {
+                out.writeLong(((Number) edge.get("fromId")).longValue());
+                out.writeLong(((Number) edge.get("toId")).longValue());
+                final Map<?, ?> properties = (Map<?, ?>) edge.get("properties");
+                writeProperties(properties == null ? Collections.emptyMap() : properties);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Ends the file; a file that was not closed cannot be read.
+    @Override
+    public void close() {
+        try {
+            out.writeByte(END);
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeProperties(Map<?, ?> properties) throws IOException {
+        out.writeInt(properties.size());
+        for (Map.Entry<?, ?> property : properties.entrySet()) {
+            writeString(property.getKey().toString());
+            writeValue(property.getValue());
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value);
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(element);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot write a property of type " + value.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package ldbc.finbench.acid.generator;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+import ldbc.finbench.acid.driver.Drivers;
+import ldbc.finbench.acid.driver.TestDriver;
+
+// Generates a FinBench-like graph and streams it into a sink in batches, without holding it in memory: persons and
+// companies that own accounts and apply for loans, loans that deposit into accounts, and transfers between
+// accounts. The out-degree and in-degree of the transfers follow power laws and the transfers are generated in the
+// order of their timestamps, as in the FinBench datasets. Everything but the transfers is derived from a hash of the
+// seed and the id of the element, so the nodes and edges referring to each other need not be remembered; the
+// transfers are drawn in sequence from a Random with the seed. The same seed yields the same graph.
+public class GraphGenerator {
+
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    // Told after every batch handed to the sink how many of the nodes and edges of the graph were generated so far.
+    public interface Progress {
+        void generated(long elements, long total);
+    }
+
+    private final long accounts;
+    private long persons;
+    private long companies;
+    private long loans;
+    private long transfers;
+    private double outTheta = 0.8;
+    private double inTheta = 0.5;
+    private long seed = 42;
+    private int batchSize = 10_000;
+    // 2020-01-01T00:00:00Z and three years, the span of the FinBench datasets
+    private long startMillis = 1_577_836_800_000L;
+    private long spanMillis = 3 * YEAR_MILLIS;
+    private Progress progress = (elements, total) -> {
+    };
+
+    // The number of persons, companies and loans and the number of transfers (10 per account) scale with the
+    // number of accounts unless they are set.
+    public GraphGenerator(long accounts) {
+        if (accounts < 2) {
+            throw new IllegalArgumentException("The graph needs at least 2 accounts: " + accounts);
+        }
+        this.accounts = accounts;
+        this.persons = Math.max(1, accounts / 2);
+        this.companies = Math.max(1, accounts / 4);
+        this.loans = accounts / 4;
+        this.transfers = 10 * accounts;
+    }
+
+    public GraphGenerator setPersons(long persons) {
+        if (persons < 1) {
+            throw new IllegalArgumentException("The accounts need at least 1 person to own them: " + persons);
+        }
+        this.persons = persons;
+        return this;
+    }
+
+    public GraphGenerator setCompanies(long companies) {
+        if (companies < 1) {
+            throw new IllegalArgumentException("The accounts need at least 1 company to own them: " + companies);
+        }
+        this.companies = companies;
+        return this;
+    }
+
+    public GraphGenerator setLoans(long loans) {
+        this.loans = loans;
+        return this;
+    }
+
+    public GraphGenerator setTransfers(long transfers) {
+        this.transfers = transfers;
+        return this;
+    }
+
+    // the skew of the out-degree (0.8 by default) and of the in-degree (0.5) of the transfers, 0 is uniform
+    public GraphGenerator setTheta(double outTheta, double inTheta) {
+        this.outTheta = outTheta;
+        this.inTheta = inTheta;
+        return this;
+    }
+
+    public GraphGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    // the number of nodes or edges handed to the sink at once
+    public GraphGenerator setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    // the time range of the transfers, from 2020 to 2022 by default
+    public GraphGenerator setTimeRange(long startMillis, long spanMillis) {
+        this.startMillis = startMillis;
+        this.spanMillis = spanMillis;
+        return this;
+    }
+
+    // follows the generation batch by batch, nothing by default
+    public GraphGenerator setProgress(Progress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    public long getNodes() {
+        return accounts + persons + companies + loans;
+    }
+
+    // the own, apply, deposit and transfer edges
+    public long getEdges() {
+        return accounts + 2 * loans + transfers;
+    }
+
+    // the local ids of the nodes of each label, one range after the other
+    private long accountId(long i) {
+        return i;
+    }
+
+    private long personId(long i) {
+        return accounts + i;
+    }
+
+    private long companyId(long i) {
+        return accounts + persons + i;
+    }
+
+    private long loanId(long i) {
+        return accounts + persons + companies + i;
+    }
+
+    // SplitMix64 of the seed, a salt per property and the index of the element
+    private long hash(long salt, long i) {
+        long z = seed + salt * 0x9E3779B97F4A7C15L + i * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private long uniform(long salt, long i, long n) {
+        return Math.floorMod(hash(salt, i), n);
+    }
+
+    private long accountCreateTime(long i) {
+        return startMillis - uniform(1, i, YEAR_MILLIS);
+    }
+
+    // owned by a company with probability 1/3, by a person otherwise
+    private boolean ownedByCompany(long i) {
+        return uniform(2, i, 3) == 0;
+    }
+
+    private long loanAmount(long i) {
+        return 10_000 + uniform(3, i, 990_000);
+    }
+
+    private boolean appliedByCompany(long i) {
+        return uniform(4, i, 3) == 0;
+    }
+
+    private long timestamp(long salt, long i) {
+        return startMillis + uniform(salt, i, spanMillis);
+    }
+
+    // Streams the graph into the current namespace of the driver through its bulk load path.
+    public void generate(TestDriver<?, ?, ?> driver) {
+        generate(GraphSink.of(driver), driver::id);
+    }
+
+    // Streams the graph into the sink, the local ids are translated into the ids of the sink by the function.
+    public void generate(GraphSink output, LongUnaryOperator ids) {
+        final GraphSink sink = withProgress(output);
+        try (Batch accountBatch = new Batch(sink, "Account")) {
+            for (long i = 0; i < accounts; i++) {
+                accountBatch.add(ImmutableMap.of("id", ids.applyAsLong(accountId(i)),
+                        "createTime", accountCreateTime(i), "isBlocked", false,
+                        "type", ownedByCompany(i) ? "business" : "personal", "balance", 0L));
+            }
+        }
+        try (Batch personBatch = new Batch(sink, "Person")) {
+            for (long i = 0; i < persons; i++) {
+                personBatch.add(ImmutableMap.of("id", ids.applyAsLong(personId(i)), "name", "Person" + i,
+                        "isBlocked", false));
+            }
+        }
+        try (Batch companyBatch = new Batch(sink, "Company")) {
+            for (long i = 0; i < companies; i++) {
+                companyBatch.add(ImmutableMap.of("id", ids.applyAsLong(companyId(i)), "name", "Company" + i,
+                        "isBlocked", false));
+            }
+        }
+        try (Batch loanBatch = new Batch(sink, "Loan")) {
+            for (long i = 0; i < loans; i++) {
+                loanBatch.add(ImmutableMap.of("id", ids.applyAsLong(loanId(i)), "loanAmount", loanAmount(i),
+                        "balance", loanAmount(i)));
+            }
+        }
+        try (Batch personOwn = new Batch(sink, "Person", "own", "Account");
+             Batch companyOwn = new Batch(sink, "Company", "own", "Account")) {
+            for (long i = 0; i < accounts; i++) {
+                final Map<String, Object> properties = ImmutableMap.of("timestamp", accountCreateTime(i));
+                if (ownedByCompany(i)) {
+                    companyOwn.add(edge(ids.applyAsLong(companyId(uniform(5, i, companies))),
+                            ids.applyAsLong(accountId(i)), properties));
+                } else {
+                    personOwn.add(edge(ids.applyAsLong(personId(uniform(5, i, persons))),
+                            ids.applyAsLong(accountId(i)), properties));
+                }
+            }
+        }
+        try (Batch personApply = new Batch(sink, "Person", "apply", "Loan");
+             Batch companyApply = new Batch(sink, "Company", "apply", "Loan");
+             Batch deposit = new Batch(sink, "Loan", "deposit", "Account")) {
+            for (long i = 0; i < loans; i++) {
+                final long applied = timestamp(6, i);
+                final Map<String, Object> properties = ImmutableMap.of("timestamp", applied);
+                if (appliedByCompany(i)) {
+                    companyApply.add(edge(ids.applyAsLong(companyId(uniform(7, i, companies))),
+                            ids.applyAsLong(loanId(i)), properties));
+                } else {
+                    personApply.add(edge(ids.applyAsLong(personId(uniform(7, i, persons))),
+                            ids.applyAsLong(loanId(i)), properties));
+                }
+                deposit.add(edge(ids.applyAsLong(loanId(i)), ids.applyAsLong(accountId(uniform(8, i, accounts))),
+                        ImmutableMap.of("timestamp", applied, "amount", loanAmount(i))));
+            }
+        }
+        final Random random = new Random(seed);
+        final PowerLaw sources = new PowerLaw(accounts, outTheta, random);
+        final PowerLaw targets = new PowerLaw(accounts, inTheta, random);
+        try (Batch transfer = new Batch(sink, "Account", "transfer", "Account")) {
+            for (long k = 0; k < transfers; k++) {
+                final long source = sources.next(random);
+                long target = targets.next(random);
+                if (target == source) {
+                    target = (target + 1) % accounts;
+                }
+                // evenly spread over the time range, in the order of generation
+                final long timestamp = startMillis + (long) ((double) k * spanMillis / transfers);
+                transfer.add(edge(ids.applyAsLong(accountId(source)), ids.applyAsLong(accountId(target)),
+                        ImmutableMap.of("amount", 1L + random.nextInt(10_000), "timestamp", timestamp)));
+            }
+        }
+    }
+
+    // the sink that reports the progress after every batch it forwards
+    private GraphSink withProgress(GraphSink sink) {
+        final long total = getNodes() + getEdges();
+        final long[] generated = new long[1];
+        return new GraphSink() {
+            @Override
+            public void nodes(String label, List<Map<String, Object>> nodes) {
+                sink.nodes(label, nodes);
+                generated[0] += nodes.size();
+                progress.generated(generated[0], total);
+            }
+
+            @Override
+            public void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+                sink.edges(fromLabel, type, toLabel, edges);
+                generated[0] += edges.size();
+                progress.generated(generated[0], total);
+            }
+        };
+    }
+
+    private static Map<String, Object> edge(long fromId, long toId, Map<String, Object> properties) {
+        final Map<String, Object> edge = new HashMap<>(4);
+        edge.put("fromId", fromId);
+        edge.put("toId", toId);
+        edge.put("properties", properties);
+        return edge;
+    }
+
+    // The nodes of one label or the edges of one type, handed to the sink every batchSize elements and on close.
+    private final class Batch implements AutoCloseable {
+        private final GraphSink sink;
+        private final String label;
+        private final String type;
+        private final String toLabel;
+        private List<Map<String, Object>> elements = new ArrayList<>();
+
+        Batch(GraphSink sink, String label) {
+            this(sink, label, null, null);
+        }
+
+        Batch(GraphSink sink, String fromLabel, String type, String toLabel) {
+            this.sink = sink;
+            this.label = fromLabel;
+            this.type = type;
+            this.toLabel = toLabel;
+        }
+
+        void add(Map<String, Object> element) {
+            elements.add(element);
+            if (elements.size() == batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (elements.isEmpty()) {
+                return;
+            }
+            if (type == null) {
+                sink.nodes(label, elements);
+            } else {
+                sink.edges(label, type, toLabel, elements);
+            }
+            elements = new ArrayList<>();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+
+    // Usage: GraphGenerator <reference:<isolation level>|bolt:<host>:<port>> <accounts> [transfers] [seed]
+    // Replaces the graph in namespace 0 of the target, the tests and probes run in the namespaces from 1 on, and
+    // prints the progress at every tenth of the graph.
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: GraphGenerator <reference:<isolation level>|bolt:<host>:<port>>"
+                    + " <accounts> [transfers] [seed]");
+        }
+        final GraphGenerator generator = new GraphGenerator(Long.parseLong(args[1]));
+        if (args.length > 2) {
+            generator.setTransfers(Long.parseLong(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setSeed(Long.parseLong(args[3]));
+        }
+        try (TestDriver<?, ?, ?> driver = Drivers.create(args[0])) {
+            driver.setNamespace(0);
+            driver.nukeNamespace();
+            final long start = System.nanoTime();
+            final long[] reported = new long[1];
+            generator.setProgress((elements, total) -> {
+                if (elements * 10 / total > reported[0]) {
+                    reported[0] = elements * 10 / total;
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.println(String.format("Generated %d of %d elements in %.1f s (%.0f elements/s)",
+                            elements, total, seconds, elements / seconds));
+                }
+            });
+            generator.generate(driver);
+        }
+    }
+}
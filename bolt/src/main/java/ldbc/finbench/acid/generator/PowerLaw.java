@@ -0,0 +1,45 @@
+package ldbc.finbench.acid.generator;
+
+import java.util.Random;
+
+// Picks one of n items such that the item of rank r (from 0) is picked with a probability proportional to about
+// (r + 1)^-theta, so how often each item is picked has a heavy tail: a few hubs and many items picked rarely. The
+// rank is drawn by inverting the continuous distribution function (r / n)^(1 - theta), and the ranks are scattered
+// over the items by a permutation so that the hubs are not the lowest ids. Unlike KeyDistribution it needs constant
+// memory whatever the number of items.
+final class PowerLaw {
+
+    private final long items;
+    // 1 / (1 - theta)
+    private final double exponent;
+    // the permutation rank -> (rank * multiplier + offset) mod n, a bijection as the multiplier is coprime to n
+    private final long multiplier;
+    private final long offset;
+
+    PowerLaw(long n, double theta, Random random) {
+        if (n <= 0 || n > 1L << 32) {
+            throw new IllegalArgumentException("The number of items must be in [1, 2^32]: " + n);
+        }
+        if (theta < 0 || theta >= 1) {
+            throw new IllegalArgumentException("theta must be in [0, 1): " + theta);
+        }
+        this.items = n;
+        this.exponent = 1 / (1 - theta);
+        // about 2^30 at most, so rank * multiplier < 2^63 does not overflow
+        long m = 1 + (long) (random.nextDouble() * Math.min(n, 1L << 30));
+        while (gcd(m, n) != 1) {
+            m++;
+        }
+        this.multiplier = m;
+        this.offset = Math.floorMod(random.nextLong(), n);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    long next(Random random) {
+        final long rank = Math.min(items - 1, (long) (items * Math.pow(random.nextDouble(), exponent)));
+        return (rank * multiplier + offset) % items;
+    }
+}
@@ -0,0 +1,77 @@
+package ldbc.finbench.acid.prober;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.fixture.FixtureCache;
+import ldbc.finbench.acid.prober.IsolationProber.Level;
+import ldbc.finbench.acid.scenarios.ScenarioContext;
+import ldbc.finbench.acid.scenarios.ScenarioRun;
+import ldbc.finbench.acid.scenarios.Scenarios;
+
+// The anomalies of the test suite in the order of the README tables, each with the weakest isolation level that
+// proscribes it. The atomicity tests do not depend on the isolation level.
+public enum Anomaly {
+
+    C("C", null, Scenarios::atomicityC),
+    RB("RB", null, Scenarios::atomicityRb),
+    G0("G0", Level.READ_UNCOMMITTED, Scenarios::g0),
+    G1A("G1a", Level.READ_COMMITTED, Scenarios::g1a),
+    G1B("G1b", Level.READ_COMMITTED, Scenarios::g1b),
+    G1C("G1c", Level.READ_COMMITTED, Scenarios::g1c),
+    OTV("OTV", Level.SNAPSHOT_ISOLATION, Scenarios::otv),
+    FR("FR", Level.SNAPSHOT_ISOLATION, Scenarios::fr),
+    IMP("IMP", Level.SNAPSHOT_ISOLATION, Scenarios::imp),
+    PMP("PMP", Level.SNAPSHOT_ISOLATION, Scenarios::pmp),
+    LU("LU", Level.SNAPSHOT_ISOLATION, Scenarios::lu),
+    WS("WS", Level.SERIALIZABLE, Scenarios::ws);
+
+    interface Scenario {
+        ScenarioRun run(ScenarioContext ctx) throws InterruptedException;
+    }
+
+    // every probe runs in its own namespace, like the tests of AcidTest
+    private static final AtomicLong nextNamespace = new AtomicLong(1L << 16);
+
+    private final String label;
+    private final Level proscribedBy;
+    private final Scenario scenario;
+
+    Anomaly(String label, Level proscribedBy, Scenario scenario) {
+        this.label = label;
+        this.proscribedBy = proscribedBy;
+        this.scenario = scenario;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // null for the atomicity tests
+    public Level getProscribedBy() {
+        return proscribedBy;
+    }
+
+    // Runs the scenario of the anomaly at the load on a pool of clients, in a fresh namespace.
+    ProbeRun probe(TestDriver<?, ?, ?> driver, int load, int clients, long sleepMillis, KeyDistribution keys,
+                   FixtureCache fixtures) throws InterruptedException {
+        driver.setNamespace(nextNamespace.getAndIncrement());
+        driver.nukeNamespace();
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            final Random random = new Random();
+            final ScenarioContext ctx = new ScenarioContext(driver, executor, clients).setLoad(load)
+                    .setSleepMillis(sleepMillis).setKeys(keys.size(), () -> keys.next(random))
+                    .setFixtures(fixtures);
+            final long start = System.nanoTime();
+            final ScenarioRun run = scenario.run(ctx);
+            return new ProbeRun(run.getTransactions(), run.getAborted(), run.getObservations(), run.getAnomalies())
+                    .withCost(load, clients, System.nanoTime() - start, ctx.getLatencies());
+        } finally {
+            executor.shutdownNow();
+            driver.nukeNamespace();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ldbc.finbench.acid.prober;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import ldbc.finbench.acid.driver.TestDriver;
+
+// Runs FinBench-style write transactions (transfers, deposits, withdraws and repays) at a target throughput while
+// the probes run, so that anomaly detection and probe latency are measured under background pressure instead of on
+// an idle database. The workload runs on a driver of its own (a separate client of the same database) and in a
+// namespace of its own. It is open loop: each client starts a transaction on a fixed schedule and its latency is
+// measured from the scheduled start, so a database that falls behind does not lower the offered load.
+public class BackgroundWorkload implements AutoCloseable {
+
+    public enum Operation {
+        TRANSFER, DEPOSIT, WITHDRAW, REPAY
+    }
+
+    // after the namespaces of the probes, which start at 1 << 16
+    private static final AtomicLong nextNamespace = new AtomicLong(1L << 20);
+    private static final long BALANCE = 1_000_000;
+    private static final long LOAN_AMOUNT = 10_000_000;
+    private static final int MAX_AMOUNT = 1000;
+    // the longest a client sleeps before it checks whether the workload stopped
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final TestDriver<?, ?, ?> driver;
+    private double throughput = 100;
+    private int clients = 4;
+    private KeyDistribution accounts = KeyDistribution.uniform(1000);
+    private int loans = 100;
+    // the share of each operation, in the order of Operation
+    private double[] mix = {0.7, 0.1, 0.1, 0.1};
+
+    private ExecutorService executor;
+    private final List<Future<long[]>> futures = new ArrayList<>();
+    private volatile boolean running;
+    private long startNanos;
+    private long stopNanos;
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    // sorted latencies in nanoseconds, available after stop()
+    private long[] latencies = new long[0];
+
+    public BackgroundWorkload(TestDriver<?, ?, ?> driver) {
+        this.driver = driver;
+    }
+
+    // the transactions started per second by all clients together
+    public BackgroundWorkload setThroughput(double throughput) {
+        if (throughput <= 0) {
+            throw new IllegalArgumentException("The throughput must be positive: " + throughput);
+        }
+        this.throughput = throughput;
+        return this;
+    }
+
+    public BackgroundWorkload setClients(int clients) {
+        this.clients = clients;
+        return this;
+    }
+
+    // the number of accounts and how the transactions pick them, 1000 uniformly picked accounts by default
+    public BackgroundWorkload setAccounts(KeyDistribution accounts) {
+        if (accounts.size() < 2) {
+            throw new IllegalArgumentException("The workload needs at least 2 accounts: " + accounts);
+        }
+        this.accounts = accounts;
+        return this;
+    }
+
+    public BackgroundWorkload setLoans(int loans) {
+        this.loans = loans;
+        return this;
+    }
+
+    // the shares of the operations, 0.7, 0.1, 0.1 and 0.1 by default
+    public BackgroundWorkload setMix(double transfer, double deposit, double withdraw, double repay) {
+        final double total = transfer + deposit + withdraw + repay;
+        if (transfer < 0 || deposit < 0 || withdraw < 0 || repay < 0 || total <= 0) {
+            throw new IllegalArgumentException("Invalid operation mix");
+        }
+        this.mix = new double[] {transfer / total, deposit / total, withdraw / total, repay / total};
+        return this;
+    }
+
+    // Creates the accounts and loans in a fresh namespace and starts the clients. The driver must support namespaces:
+    // the workload nukes its namespace before and after it runs, which would otherwise nuke the whole database.
+    public BackgroundWorkload start() {
+        if (executor != null) {
+            throw new IllegalStateException("The workload was started already");
+        }
+        if (!driver.supportsNamespaces()) {
+            throw new UnsupportedOperationException(driver.getClass().getSimpleName()
+                    + " does not support namespaces, the workload would nuke the database");
+        }
+        driver.setNamespace(nextNamespace.getAndIncrement());
+        driver.nukeNamespace();
+        driver.workloadInit(ImmutableMap.of("numAccounts", (long) accounts.size(), "numLoans", (long) loans,
+                "balance", BALANCE, "loanAmount", LOAN_AMOUNT));
+        executor = Executors.newFixedThreadPool(clients);
+        running = true;
+        startNanos = System.nanoTime();
+        for (int client = 0; client < clients; client++) {
+            final int first = client;
+            futures.add(executor.submit(() -> client(first)));
+        }
+        return this;
+    }
+
+    // Stops the clients after their current transaction.
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        final List<long[]> clientLatencies = new ArrayList<>();
+        try {
+            for (Future<long[]> future : futures) {
+                clientLatencies.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A client of the background workload failed", e.getCause());
+        } finally {
+            stopNanos = System.nanoTime();
+            executor.shutdown();
+        }
+        latencies = clientLatencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    }
+
+    // Stops the workload and removes its data.
+    @Override
+    public void close() throws InterruptedException {
+        stop();
+        if (executor != null) {
+            driver.nukeNamespace();
+        }
+    }
+
+    // Runs the transactions of one client, the clients are staggered over the interval between two transactions.
+    private long[] client(int client) {
+        final Random random = new Random();
+        final long interval = (long) (1e9 * clients / throughput);
+        long[] latencies = new long[1024];
+        int count = 0;
+        long scheduled = startNanos + interval * client / clients;
+        while (running) {
+            final long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(Math.min(wait, POLL_NANOS));
+                continue;
+            }
+            try {
+                execute(pick(random), random);
+                committed.incrementAndGet();
+            } catch (UnsupportedOperationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // aborted by the database, e.g. a deadlock or a write-write conflict
+                aborted.incrementAndGet();
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, 2 * count);
+            }
+            latencies[count++] = System.nanoTime() - scheduled;
+            scheduled += interval;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private Operation pick(Random random) {
+        double p = random.nextDouble();
+        for (int i = 0; i < mix.length - 1; i++) {
+            if (p < mix[i]) {
+                return Operation.values()[i];
+            }
+            p -= mix[i];
+        }
+        return Operation.values()[mix.length - 1];
+    }
+
+    private void execute(Operation operation, Random random) {
+        final long account1Id = driver.id(accounts.next(random));
+        final long loanId = driver.id(accounts.size() + random.nextInt(loans));
+        final long amount = 1 + random.nextInt(MAX_AMOUNT);
+        final long timestamp = System.currentTimeMillis();
+        switch (operation) {
+            case TRANSFER:
+                driver.transfer(pair(account1Id, account2Id(account1Id, random), amount, timestamp));
+                break;
+            case DEPOSIT:
+                driver.deposit(ImmutableMap.of("loanId", loanId, "accountId", account1Id, "amount", amount,
+                        "timestamp", timestamp));
+                break;
+            case WITHDRAW:
+                driver.withdraw(pair(account1Id, account2Id(account1Id, random), amount, timestamp));
+                break;
+            default:
+                driver.repay(ImmutableMap.of("accountId", account1Id, "loanId", loanId, "amount", amount,
+                        "timestamp", timestamp));
+        }
+    }
+
+    // another account than the source
+    private long account2Id(long account1Id, Random random) {
+        final long account2Id = driver.id(accounts.next(random));
+        if (account2Id != account1Id) {
+            return account2Id;
+        }
+        final long localId = account1Id - driver.id(0);
+        return driver.id((localId + 1) % accounts.size());
+    }
+
+    private static Map<String, Object> pair(long account1Id, long account2Id, long amount, long timestamp) {
+        return ImmutableMap.of("account1Id", account1Id, "account2Id", account2Id, "amount", amount,
+                "timestamp", timestamp);
+    }
+
+    public long getCommitted() {
+        return committed.get();
+    }
+
+    public long getAborted() {
+        return aborted.get();
+    }
+
+    public double getTargetThroughput() {
+        return throughput;
+    }
+
+    // committed transactions per second, since the start and until the stop if it stopped
+    public double getThroughput() {
+        final long end = running ? System.nanoTime() : stopNanos;
+        return end == startNanos ? 0 : committed.get() * 1e9 / (end - startNanos);
+    }
+
+    public double getAbortRate() {
+        final long transactions = committed.get() + aborted.get();
+        return transactions == 0 ? 0 : (double) aborted.get() / transactions;
+    }
+
+    // the latency in nanoseconds from the scheduled start, available after stop()
+    public long latencyPercentile(double p) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(p * latencies.length);
+        return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("background workload: %.1f tx/s target, %.1f tx/s committed, abort rate %.3f, "
+                        + "p50 %.3f ms, p99 %.3f ms", throughput, getThroughput(), getAbortRate(),
+                latencyPercentile(0.5) / 1e6, latencyPercentile(0.99) / 1e6);
+    }
+}
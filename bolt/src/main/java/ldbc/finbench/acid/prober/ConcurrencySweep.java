@@ -0,0 +1,100 @@
+package ldbc.finbench.acid.prober;
+
+import java.util.ArrayList;
+import java.util.List;
+import ldbc.finbench.acid.driver.Drivers;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.fixture.FixtureCache;
+
+// Runs the scenario of one anomaly at 1, 2, 4, ... clients and records the throughput, p99 latency, abort rate and
+// anomaly rate at each point, to find where an engine saturates and where its concurrency control starts to thrash.
+// The number of transactions grows with the clients: the load is clients / 8, so 8 clients run the scenario as
+// AcidTest does. The atomicity scenarios run sequentially and do not depend on the clients.
+public class ConcurrencySweep {
+
+    private final TestDriver<?, ?, ?> driver;
+    private final Anomaly anomaly;
+    private int minClients = 1;
+    private int maxClients = 1024;
+    private long sleepMillis = 250;
+    private KeyDistribution keys = KeyDistribution.uniform(1);
+    private FixtureCache fixtures;
+
+    public ConcurrencySweep(TestDriver<?, ?, ?> driver, Anomaly anomaly) {
+        this.driver = driver;
+        this.anomaly = anomaly;
+    }
+
+    public ConcurrencySweep setMinClients(int minClients) {
+        this.minClients = minClients;
+        return this;
+    }
+
+    public ConcurrencySweep setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+        return this;
+    }
+
+    // the sleep time of the scenarios that widen the window of a conflict
+    public ConcurrencySweep setSleepMillis(long sleepMillis) {
+        this.sleepMillis = sleepMillis;
+        return this;
+    }
+
+    // the keys the write transactions spread over, a single key by default
+    public ConcurrencySweep setKeys(KeyDistribution keys) {
+        this.keys = keys;
+        return this;
+    }
+
+    // restores the fixtures of the scenarios from snapshots in the cache, by default every run creates them
+    public ConcurrencySweep setFixtures(FixtureCache fixtures) {
+        this.fixtures = fixtures;
+        return this;
+    }
+
+    public List<ProbeRun> sweep() throws InterruptedException {
+        final List<ProbeRun> runs = new ArrayList<>();
+        for (int clients = minClients; clients <= maxClients; clients *= 2) {
+            runs.add(anomaly.probe(driver, Math.max(1, clients / 8), clients, sleepMillis, keys, fixtures));
+        }
+        return runs;
+    }
+
+    public static String table(List<ProbeRun> runs) {
+        final StringBuilder table = new StringBuilder(
+                "| Clients | Transactions | Throughput (tx/s) | p99 (ms) | Abort rate | Anomaly rate |\n"
+                        + "|---------|--------------|-------------------|----------|------------|--------------|");
+        for (ProbeRun run : runs) {
+            table.append(String.format("%n| %d | %d | %.1f | %.3f | %.3f | %.3f |", run.getClients(),
+                    run.getTransactions(), run.getThroughput(), run.latencyPercentile(0.99) / 1e6,
+                    run.getAbortRate(), run.getAnomalyRate()));
+        }
+        return table.toString();
+    }
+
+    // Usage: ConcurrencySweep <reference:<isolation level>|bolt:<host>:<port>> <anomaly> [max clients]
+    // [sleep millis|auto] [keys] [background tx/s]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: ConcurrencySweep"
+                    + " <reference:<isolation level>|bolt:<host>:<port>> <anomaly> [max clients]"
+                    + " [sleep millis|auto] [keys] [background tx/s]");
+        }
+        try (TestDriver<?, ?, ?> driver = Drivers.create(args[0])) {
+            final ConcurrencySweep sweep = new ConcurrencySweep(driver, Anomaly.valueOf(args[1].toUpperCase()))
+                    .setFixtures(FixtureCache.fromProperty());
+            if (args.length > 2) {
+                sweep.setMaxClients(Integer.parseInt(args[2]));
+            }
+            final String calibration = args.length > 3
+                    ? IsolationProber.sleepMillis(driver, args[3], sweep::setSleepMillis) : "";
+            if (args.length > 4) {
+                sweep.setKeys(KeyDistribution.parse(args[4]));
+            }
+            final double background = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+            System.out.println(calibration
+                    + IsolationProber.withBackground(args[0], driver, background, () -> table(sweep.sweep())));
+        }
+    }
+}
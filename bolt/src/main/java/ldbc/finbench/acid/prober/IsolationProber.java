@@ -0,0 +1,156 @@
+package ldbc.finbench.acid.prober;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.LongConsumer;
+import ldbc.finbench.acid.driver.Drivers;
+import ldbc.finbench.acid.driver.SleepCalibration;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.fixture.FixtureCache;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+
+// Runs the scenarios of the test suite with escalating load and infers the strongest isolation level the database
+// provides, so the tables of the README can be regenerated when a database is upgraded. Each anomaly is probed at
+// load 1, 2, 4, ... up to the maximum load and escalation stops as soon as the anomaly shows. The inferred level is
+// an upper bound: an anomaly that never showed may still be possible.
+public class IsolationProber {
+
+    // the isolation levels in the order of their strength
+    public enum Level {
+        NONE("None"),
+        READ_UNCOMMITTED("Read Uncommitted"),
+        READ_COMMITTED("Read Committed"),
+        SNAPSHOT_ISOLATION("Snapshot"),
+        SERIALIZABLE("Serializable");
+
+        private final String label;
+
+        Level(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final TestDriver<?, ?, ?> driver;
+    private int maxLoad = 4;
+    private long sleepMillis = 250;
+    private KeyDistribution keys = KeyDistribution.uniform(1);
+    private FixtureCache fixtures;
+    private Set<Anomaly> anomalies = EnumSet.allOf(Anomaly.class);
+
+    public IsolationProber(TestDriver<?, ?, ?> driver) {
+        this.driver = driver;
+    }
+
+    public IsolationProber setMaxLoad(int maxLoad) {
+        this.maxLoad = maxLoad;
+        return this;
+    }
+
+    // the sleep time of the scenarios that widen the window of a conflict
+    public IsolationProber setSleepMillis(long sleepMillis) {
+        this.sleepMillis = sleepMillis;
+        return this;
+    }
+
+    // the keys the write transactions spread over, a single key by default
+    public IsolationProber setKeys(KeyDistribution keys) {
+        this.keys = keys;
+        return this;
+    }
+
+    // restores the fixtures of the scenarios from snapshots in the cache, by default every run creates them
+    public IsolationProber setFixtures(FixtureCache fixtures) {
+        this.fixtures = fixtures;
+        return this;
+    }
+
+    public IsolationProber setAnomalies(Set<Anomaly> anomalies) {
+        this.anomalies = EnumSet.copyOf(anomalies);
+        return this;
+    }
+
+    public ProbeReport probe() throws InterruptedException {
+        final Map<Anomaly, List<ProbeRun>> runs = new LinkedHashMap<>();
+        for (Anomaly anomaly : anomalies) {
+            final List<ProbeRun> anomalyRuns = new ArrayList<>();
+            for (int load = 1; load <= maxLoad; load *= 2) {
+                final ProbeRun run = anomaly.probe(driver, load, 8 * load, sleepMillis, keys, fixtures);
+                anomalyRuns.add(run);
+                if (run.getAnomalies() > 0) {
+                    break;
+                }
+            }
+            runs.put(anomaly, anomalyRuns);
+        }
+        return new ProbeReport(runs);
+    }
+
+    // Sets a sleep time given in milliseconds, or calibrated from the round-trip latency of the driver for "auto".
+    // Returns the paragraph on the calibration that heads the output, empty for a given sleep time.
+    static String sleepMillis(TestDriver<?, ?, ?> driver, String sleep, LongConsumer setSleepMillis) {
+        if (!"auto".equals(sleep)) {
+            setSleepMillis.accept(Long.parseLong(sleep));
+            return "";
+        }
+        final SleepCalibration calibration = SleepCalibration.calibrate(driver);
+        setSleepMillis.accept(calibration.getSleepMillis());
+        return "Calibrated the sleep time: " + calibration + System.lineSeparator() + System.lineSeparator();
+    }
+
+    // A second client of the target for the background workload: another connection pool to the same database, or
+    // another driver of the same reference engine.
+    static TestDriver<?, ?, ?> createClient(String target, TestDriver<?, ?, ?> driver) {
+        if (driver instanceof ReferenceDriver) {
+            return new ReferenceDriver(((ReferenceDriver) driver).getStore());
+        }
+        return Drivers.create(target);
+    }
+
+    // Returns the output of the probes, run with a background workload of the given throughput (transactions per
+    // second) on a second client if it is positive, followed by the statistics of the workload.
+    static String withBackground(String target, TestDriver<?, ?, ?> driver, double throughput,
+                                 Callable<String> probes) throws Exception {
+        if (throughput <= 0) {
+            return probes.call();
+        }
+        try (TestDriver<?, ?, ?> client = createClient(target, driver);
+             BackgroundWorkload workload = new BackgroundWorkload(client).setThroughput(throughput).start()) {
+            final String output = probes.call();
+            workload.stop();
+            return output + System.lineSeparator() + System.lineSeparator() + workload;
+        }
+    }
+
+    // Usage: IsolationProber <reference:<isolation level>|bolt:<host>:<port>> [max load] [sleep millis|auto] [keys]
+    // [background tx/s]
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: IsolationProber <reference:<isolation level>|bolt:<host>:<port>>"
+                    + " [max load] [sleep millis|auto] [keys] [background tx/s]");
+        }
+        try (TestDriver<?, ?, ?> driver = Drivers.create(args[0])) {
+            final IsolationProber prober = new IsolationProber(driver).setFixtures(FixtureCache.fromProperty());
+            if (args.length > 1) {
+                prober.setMaxLoad(Integer.parseInt(args[1]));
+            }
+            final String calibration = args.length > 2 ? sleepMillis(driver, args[2], prober::setSleepMillis) : "";
+            if (args.length > 3) {
+                prober.setKeys(KeyDistribution.parse(args[3]));
+            }
+            final double background = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+            System.out.println(calibration + withBackground(args[0], driver, background, () -> {
+                final ProbeReport report = prober.probe();
+                return report.table(args[0]) + System.lineSeparator() + System.lineSeparator() + report.details();
+            }));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ldbc.finbench.acid.prober;
+
+import java.util.Arrays;
+import java.util.Random;
+import ldbc.finbench.acid.driver.TestDriver;
+
+// Chooses which key of a key space a write transaction touches: uniformly, Zipfian with a tunable skew theta, or a
+// hot set of keys that receives a fixed share of the accesses. Key 0 is the hottest key of the skewed distributions.
+public abstract class KeyDistribution {
+
+    private final int size;
+
+    private KeyDistribution(int size) {
+        this.size = checkSize(size);
+    }
+
+    private static int checkSize(int size) {
+        if (size < 1 || size > TestDriver.NAMESPACE_SIZE / TestDriver.KEY_STRIDE) {
+            throw new IllegalArgumentException("Invalid key space size " + size);
+        }
+        return size;
+    }
+
+    // the number of keys
+    public int size() {
+        return size;
+    }
+
+    public abstract int next(Random random);
+
+    public static KeyDistribution uniform(int size) {
+        return new KeyDistribution(size) {
+            @Override
+            public int next(Random random) {
+                return random.nextInt(size);
+            }
+
+            @Override
+            public String toString() {
+                return "uniform:" + size;
+            }
+        };
+    }
+
+    // Key k is chosen with a probability proportional to 1 / (k + 1)^theta, theta 0 is uniform.
+    public static KeyDistribution zipfian(int size, double theta) {
+        if (theta < 0) {
+            throw new IllegalArgumentException("Invalid Zipfian theta " + theta);
+        }
+        final double[] cdf = new double[checkSize(size)];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1 / Math.pow(k + 1, theta);
+            cdf[k] = sum;
+        }
+        final double total = sum;
+        return new KeyDistribution(size) {
+            @Override
+            public int next(Random random) {
+                final int i = Arrays.binarySearch(cdf, random.nextDouble() * total);
+                return Math.min(size - 1, i < 0 ? -i - 1 : i);
+            }
+
+            @Override
+            public String toString() {
+                return "zipfian:" + size + ":" + theta;
+            }
+        };
+    }
+
+    // The first hotKeys share of the keys receives the hotAccesses share of the accesses, e.g. 0.01 and 0.9 for 90%
+    // of the writes on 1% of the keys. Both parts are uniform.
+    public static KeyDistribution hotspot(int size, double hotKeys, double hotAccesses) {
+        if (hotKeys <= 0 || hotKeys > 1 || hotAccesses < 0 || hotAccesses > 1) {
+            throw new IllegalArgumentException("Invalid hotspot " + hotKeys + ", " + hotAccesses);
+        }
+        final int hot = Math.max(1, (int) Math.round(size * hotKeys));
+        return new KeyDistribution(size) {
+            @Override
+            public int next(Random random) {
+                if (hot == size || random.nextDouble() < hotAccesses) {
+                    return random.nextInt(hot);
+                }
+                return hot + random.nextInt(size - hot);
+            }
+
+            @Override
+            public String toString() {
+                return "hotspot:" + size + ":" + hotKeys + ":" + hotAccesses;
+            }
+        };
+    }
+
+    // Parses uniform:<size>, zipfian:<size>:<theta> or hotspot:<size>:<hot keys>:<hot accesses>.
+    public static KeyDistribution parse(String spec) {
+        final String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "uniform":
+                    return uniform(Integer.parseInt(parts[1]));
+                case "zipfian":
+                    return zipfian(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]));
+                case "hotspot":
+                    return hotspot(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]),
+                            Double.parseDouble(parts[3]));
+                default:
+                    break;
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid key distribution " + spec, e);
+        }
+        throw new IllegalArgumentException("Unknown key distribution " + spec
+                + ", expected uniform:<size>, zipfian:<size>:<theta> or hotspot:<size>:<hot keys>:<hot accesses>");
+    }
+}
@@ -0,0 +1,126 @@
+package ldbc.finbench.acid.prober;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ldbc.finbench.acid.prober.IsolationProber.Level;
+
+// The runs of every probed anomaly, with the isolation level they imply, printed as a row of the README tables and a
+// table of the detection rates and costs.
+public class ProbeReport {
+
+    private static final String PASSED = ":white_check_mark:";
+    private static final String FAILED = ":x:";
+    private static final String INCONCLUSIVE = "?";
+
+    private final Map<Anomaly, List<ProbeRun>> runs;
+
+    ProbeReport(Map<Anomaly, List<ProbeRun>> runs) {
+        this.runs = runs;
+    }
+
+    public Set<Anomaly> getAnomalies() {
+        return runs.keySet();
+    }
+
+    public List<ProbeRun> getRuns(Anomaly anomaly) {
+        return runs.get(anomaly);
+    }
+
+    public boolean isDetected(Anomaly anomaly) {
+        return detectedAt(anomaly) > 0;
+    }
+
+    // no run could check for the anomaly, e.g. because every reader aborted
+    public boolean isInconclusive(Anomaly anomaly) {
+        return runs.get(anomaly).stream().mapToInt(ProbeRun::getObservations).sum() == 0;
+    }
+
+    // the load at which the anomaly showed first, 0 if it did not show
+    public int detectedAt(Anomaly anomaly) {
+        for (ProbeRun run : runs.get(anomaly)) {
+            if (run.getAnomalies() > 0) {
+                return run.getLoad();
+            }
+        }
+        return 0;
+    }
+
+    // the share of the observations over all runs that showed the anomaly
+    public double detectionRate(Anomaly anomaly) {
+        final int observations = runs.get(anomaly).stream().mapToInt(ProbeRun::getObservations).sum();
+        final int anomalies = runs.get(anomaly).stream().mapToInt(ProbeRun::getAnomalies).sum();
+        return observations == 0 ? 0 : (double) anomalies / observations;
+    }
+
+    // The strongest level that proscribes none of the detected anomalies.
+    public Level inferredLevel() {
+        Level level = Level.SERIALIZABLE;
+        for (Anomaly anomaly : runs.keySet()) {
+            final Level proscribedBy = anomaly.getProscribedBy();
+            if (proscribedBy != null && isDetected(anomaly) && proscribedBy.ordinal() <= level.ordinal()) {
+                level = Level.values()[proscribedBy.ordinal() - 1];
+            }
+        }
+        return level;
+    }
+
+    private String result(Anomaly anomaly) {
+        if (isDetected(anomaly)) {
+            return FAILED;
+        }
+        return isInconclusive(anomaly) ? INCONCLUSIVE : PASSED;
+    }
+
+    // The results in the format of the tables in the README, the isolation level after the atomicity columns.
+    public String table(String database) {
+        final StringBuilder header = new StringBuilder("| Database ");
+        final StringBuilder separator = new StringBuilder("|----------");
+        final StringBuilder row = new StringBuilder("| ").append(database).append(' ');
+        boolean levelAdded = false;
+        for (Anomaly anomaly : runs.keySet()) {
+            if (!levelAdded && anomaly.getProscribedBy() != null) {
+                header.append("| Isolation Level ");
+                separator.append("|-----------------");
+                row.append("| ").append(inferredLevel().getLabel()).append(' ');
+                levelAdded = true;
+            }
+            header.append("| ").append(anomaly.getLabel()).append(' ');
+            separator.append("|-----");
+            row.append("| ").append(result(anomaly)).append(' ');
+        }
+        if (!levelAdded) {
+            header.append("| Isolation Level ");
+            separator.append("|-----------------");
+            row.append("| ").append(inferredLevel().getLabel()).append(' ');
+        }
+        return header.append("|\n").append(separator).append("|\n").append(row).append('|').toString();
+    }
+
+    // The detection rate and the cost of every anomaly, summed over its runs.
+    public String details() {
+        final StringBuilder details = new StringBuilder(
+                "| Anomaly | Detected at load | Detection rate | Transactions | Aborted | Abort rate | p99 (ms) "
+                        + "| Seconds |\n"
+                        + "|---------|------------------|----------------|--------------|---------|------------|"
+                        + "----------|---------|");
+        for (Map.Entry<Anomaly, List<ProbeRun>> entry : runs.entrySet()) {
+            final Anomaly anomaly = entry.getKey();
+            final int transactions = entry.getValue().stream().mapToInt(ProbeRun::getTransactions).sum();
+            final int aborted = entry.getValue().stream().mapToInt(ProbeRun::getAborted).sum();
+            final long nanos = entry.getValue().stream().mapToLong(ProbeRun::getNanos).sum();
+            // the p99 latency at the highest load
+            final long p99 = entry.getValue().get(entry.getValue().size() - 1).latencyPercentile(0.99);
+            details.append(String.format("%n| %s | %s | %.3f | %d | %d | %.3f | %.3f | %.1f |", anomaly.getLabel(),
+                    isDetected(anomaly) ? String.valueOf(detectedAt(anomaly)) : "-", detectionRate(anomaly),
+                    transactions, aborted, transactions == 0 ? 0 : (double) aborted / transactions, p99 / 1e6,
+                    nanos / 1e9));
+        }
+        return details.toString();
+    }
+
+    @Override
+    public String toString() {
+        return table("Database") + "\n\n" + details();
+    }
+}
@@ -0,0 +1,88 @@
+package ldbc.finbench.acid.prober;
+
+// One run of a probe at one load: how often the anomaly could be checked (observations), how often it showed, and
+// what the run cost.
+public class ProbeRun {
+
+    private static final long[] NO_LATENCIES = new long[0];
+
+    private final int load;
+    private final int clients;
+    private final int transactions;
+    private final int aborted;
+    private final int observations;
+    private final int anomalies;
+    private final long nanos;
+    // sorted, only of the transactions run concurrently by the clients
+    private final long[] latencies;
+
+    ProbeRun(int transactions, int aborted, int observations, int anomalies) {
+        this(0, 0, transactions, aborted, observations, anomalies, 0, NO_LATENCIES);
+    }
+
+    private ProbeRun(int load, int clients, int transactions, int aborted, int observations, int anomalies,
+                     long nanos, long[] latencies) {
+        this.load = load;
+        this.clients = clients;
+        this.transactions = transactions;
+        this.aborted = aborted;
+        this.observations = observations;
+        this.anomalies = anomalies;
+        this.nanos = nanos;
+        this.latencies = latencies;
+    }
+
+    ProbeRun withCost(int load, int clients, long nanos, long[] latencies) {
+        return new ProbeRun(load, clients, transactions, aborted, observations, anomalies, nanos, latencies);
+    }
+
+    public int getLoad() {
+        return load;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public int getAborted() {
+        return aborted;
+    }
+
+    public int getObservations() {
+        return observations;
+    }
+
+    public int getAnomalies() {
+        return anomalies;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // committed transactions per second
+    public double getThroughput() {
+        return nanos == 0 ? 0 : (transactions - aborted) / (nanos / 1e9);
+    }
+
+    public double getAbortRate() {
+        return transactions == 0 ? 0 : (double) aborted / transactions;
+    }
+
+    public double getAnomalyRate() {
+        return observations == 0 ? 0 : (double) anomalies / observations;
+    }
+
+    // the latency in nanoseconds below which the share p of the transactions finished, 0 without latencies
+    public long latencyPercentile(double p) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(p * latencies.length);
+        return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)];
+    }
+}
@@ -0,0 +1,148 @@
+package ldbc.finbench.acid.reference;
+
+import java.util.Arrays;
+
+// An account node of the reference engine with its outgoing transfer edges and the sources of its incoming ones.
+// Accounts are immutable, every update copies the account; properties that are not set are null, or NULL for the
+// long ones.
+public final class Account {
+
+    public static final long NULL = Long.MIN_VALUE;
+    public static final Account EMPTY = new Account(NULL, NULL, null, null, null, new long[0], new long[0],
+            new long[0][], new long[0]);
+
+    private final long balance;
+    private final long numTransferred;
+    private final String name;
+    private final long[] transHistory;
+    private final long[] versionHistory;
+    // outgoing transfers as parallel arrays: target id, amount and version history of each edge
+    private final long[] transferTargets;
+    private final long[] transferAmounts;
+    private final long[][] transferVersionHistories;
+    // one source id per incoming transfer
+    private final long[] transferSources;
+
+    private Account(long balance, long numTransferred, String name, long[] transHistory, long[] versionHistory,
+                    long[] transferTargets, long[] transferAmounts, long[][] transferVersionHistories,
+                    long[] transferSources) {
+        this.balance = balance;
+        this.numTransferred = numTransferred;
+        this.name = name;
+        this.transHistory = transHistory;
+        this.versionHistory = versionHistory;
+        this.transferTargets = transferTargets;
+        this.transferAmounts = transferAmounts;
+        this.transferVersionHistories = transferVersionHistories;
+        this.transferSources = transferSources;
+    }
+
+    private static long[] append(long[] values, long value) {
+        final long[] result = values == null ? new long[1] : Arrays.copyOf(values, values.length + 1);
+        result[result.length - 1] = value;
+        return result;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public long getNumTransferred() {
+        return numTransferred;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long[] getTransHistory() {
+        return transHistory;
+    }
+
+    public long[] getVersionHistory() {
+        return versionHistory;
+    }
+
+    public int getTransferCount() {
+        return transferTargets.length;
+    }
+
+    public long getTransferTarget(int i) {
+        return transferTargets[i];
+    }
+
+    public long getTransferAmount(int i) {
+        return transferAmounts[i];
+    }
+
+    public long[] getTransferVersionHistory(int i) {
+        return transferVersionHistories[i];
+    }
+
+    // the index of the first transfer to the target, -1 if there is none
+    public int transferTo(long target) {
+        for (int i = 0; i < transferTargets.length; i++) {
+            if (transferTargets[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getIncomingTransferCount() {
+        return transferSources.length;
+    }
+
+    public Account withBalance(long balance) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, transferSources);
+    }
+
+    public Account withNumTransferred(long numTransferred) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, transferSources);
+    }
+
+    public Account withName(String name) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, transferSources);
+    }
+
+    public Account withTransHistory(long... transHistory) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, transferSources);
+    }
+
+    public Account appendTransHistory(long value) {
+        return withTransHistory(append(transHistory, value));
+    }
+
+    public Account withVersionHistory(long... versionHistory) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, transferSources);
+    }
+
+    public Account appendVersionHistory(long value) {
+        return withVersionHistory(append(versionHistory, value));
+    }
+
+    // adds an outgoing transfer, amount may be NULL and versionHistory null
+    public Account withTransfer(long target, long amount, long[] versionHistory) {
+        final long[][] versionHistories = Arrays.copyOf(transferVersionHistories, transferTargets.length + 1);
+        versionHistories[transferTargets.length] = versionHistory;
+        return new Account(balance, numTransferred, name, transHistory, this.versionHistory,
+                append(transferTargets, target), append(transferAmounts, amount), versionHistories, transferSources);
+    }
+
+    public Account appendTransferVersionHistory(int i, long value) {
+        final long[][] versionHistories = transferVersionHistories.clone();
+        versionHistories[i] = append(versionHistories[i], value);
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, versionHistories, transferSources);
+    }
+
+    public Account withIncomingTransfer(long source) {
+        return new Account(balance, numTransferred, name, transHistory, versionHistory, transferTargets,
+                transferAmounts, transferVersionHistories, append(transferSources, source));
+    }
+}
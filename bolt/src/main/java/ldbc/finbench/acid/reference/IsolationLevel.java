@@ -0,0 +1,17 @@
+package ldbc.finbench.acid.reference;
+
+// Concurrency control of the reference engine.
+public enum IsolationLevel {
+    // Every read sees the state committed when the statement started. Writes lock the record until the end of the
+    // transaction and are applied to the latest committed state, so read-modify-write statements do not lose updates.
+    READ_COMMITTED,
+    // Reads see the snapshot taken when the transaction started. Of two concurrent transactions that update the same
+    // record the second one aborts (first updater wins).
+    SNAPSHOT_ISOLATION,
+    // Strict two-phase locking: shared locks for reads and exclusive locks for writes, held until the end of the
+    // transaction. A transaction that would close a cycle of waiting transactions aborts.
+    SERIALIZABLE_2PL,
+    // Snapshot isolation that additionally tracks rw-antidependencies between concurrent transactions and aborts a
+    // transaction that has both an incoming and an outgoing one (serializable snapshot isolation, Cahill et al.).
+    SERIALIZABLE_SSI
+}
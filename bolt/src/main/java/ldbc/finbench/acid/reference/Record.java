@@ -0,0 +1,60 @@
+package ldbc.finbench.acid.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A record of the store with its version chain and locks. All fields are guarded by the record's monitor, which is
+// also used to wait for locks.
+final class Record<V> {
+    final long id;
+    Version<V> head;
+    // the transaction holding the write lock
+    ReferenceTransaction<V> writer;
+    // shared lock holders (2PL) or SIREAD lock holders (SSI), created on first use
+    List<ReferenceTransaction<V>> readers;
+
+    Record(long id) {
+        this.id = id;
+    }
+
+    // the newest version committed at or before the timestamp
+    Version<V> versionAt(long timestamp) {
+        Version<V> version = head;
+        while (version != null && version.commitTs > timestamp) {
+            version = version.older;
+        }
+        return version;
+    }
+
+    V valueAt(long timestamp) {
+        final Version<V> version = versionAt(timestamp);
+        return version == null ? null : version.value;
+    }
+
+    // returns false if the transaction already is a reader
+    boolean addReader(ReferenceTransaction<V> tx) {
+        if (readers == null) {
+            readers = new ArrayList<>(4);
+        } else if (readers.contains(tx)) {
+            return false;
+        }
+        return readers.add(tx);
+    }
+
+    // Drops the SIREAD locks that cannot lead to a conflict anymore: those of aborted transactions and of
+    // transactions that committed before every active transaction started.
+    void removeStaleReaders(long oldestSnapshot) {
+        if (readers != null) {
+            readers.removeIf(r -> r.status == ReferenceTransaction.Status.ABORTED
+                    || r.status == ReferenceTransaction.Status.COMMITTED && r.commitTs <= oldestSnapshot);
+        }
+    }
+
+    // Drops the versions older than the newest one visible at the timestamp, no transaction can read them.
+    void prune(long oldestSnapshot) {
+        final Version<V> visible = versionAt(oldestSnapshot);
+        if (visible != null) {
+            visible.older = null;
+        }
+    }
+}
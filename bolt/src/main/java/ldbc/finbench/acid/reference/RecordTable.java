@@ -0,0 +1,167 @@
+package ldbc.finbench.acid.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Records keyed by their long id, without boxing: the table is split into segments, each an open-addressing hash
+// table with linear probing guarded by its own monitor.
+final class RecordTable<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    RecordTable() {
+        segments = new Segment[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    // murmur3 finalizer, the ids of a namespace differ only in their low bits
+    private static long mix(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Segment<V> segment(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    Record<V> get(long id) {
+        final long hash = mix(id);
+        return segment(hash).get(id, (int) hash);
+    }
+
+    Record<V> getOrCreate(long id) {
+        final long hash = mix(id);
+        return segment(hash).getOrCreate(id, (int) hash);
+    }
+
+    void forEach(Consumer<Record<V>> consumer) {
+        for (Segment<V> segment : segments) {
+            segment.records().forEach(consumer);
+        }
+    }
+
+    // removes the records with minId <= id <= maxId
+    void removeRange(long minId, long maxId) {
+        for (Segment<V> segment : segments) {
+            segment.removeRange(minId, maxId);
+        }
+    }
+
+    void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static final class Segment<V> {
+        private long[] keys;
+        private Record<V>[] values;
+        private int size;
+
+        Segment() {
+            clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void clear() {
+            keys = new long[INITIAL_CAPACITY];
+            values = new Record[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized Record<V> get(long id, int hash) {
+            final int mask = keys.length - 1;
+            for (int i = hash & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized Record<V> getOrCreate(long id, int hash) {
+            final int mask = keys.length - 1;
+            int i = hash & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+            }
+            final Record<V> record = new Record<>(id);
+            keys[i] = id;
+            values[i] = record;
+            if (++size * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            return record;
+        }
+
+        synchronized List<Record<V>> records() {
+            final List<Record<V>> records = new ArrayList<>(size);
+            for (Record<V> record : values) {
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+            return records;
+        }
+
+        synchronized void removeRange(long minId, long maxId) {
+            int removed = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null && keys[i] >= minId && keys[i] <= maxId) {
+                    values[i] = null;
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                // linear probing cannot leave holes in a probe sequence, so the survivors are inserted again
+                size -= removed;
+                rehash(keys.length);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void rehash(int capacity) {
+            final long[] oldKeys = keys;
+            final Record<V>[] oldValues = values;
+            keys = new long[capacity];
+            values = new Record[capacity];
+            final int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = (int) mix(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,757 @@
+package ldbc.finbench.acid.reference;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.generator.GraphSink;
+
+// Runs the scenarios in process on the reference engine, without a database. Each scenario performs the reads and
+// writes of the corresponding Cypher in BoltDriver, statement by statement, so the checks of AcidTest see the
+// anomalies that the isolation level of the engine allows and nothing else.
+public class ReferenceDriver extends TestDriver<ReferenceTransaction<Account>, Map<String, Object>, Object> {
+
+    protected final ReferenceStore<Account> store;
+    // ids of the unlabelled transfer targets created by luW, negative so that they never collide with accounts
+    private final AtomicLong nextUnlabelledId = new AtomicLong();
+
+    public ReferenceDriver(IsolationLevel isolationLevel) {
+        this(new ReferenceStore<>(isolationLevel));
+    }
+
+    public ReferenceDriver(ReferenceStore<Account> store) {
+        this.store = store;
+    }
+
+    public ReferenceStore<Account> getStore() {
+        return store;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public ReferenceTransaction<Account> startTransaction() {
+        return store.begin();
+    }
+
+    @Override
+    public void commitTransaction(ReferenceTransaction<Account> tt) {
+        store.commit(tt);
+    }
+
+    @Override
+    public void abortTransaction(ReferenceTransaction<Account> tt) {
+        store.abort(tt);
+    }
+
+    @Override
+    public Object runQuery(ReferenceTransaction<Account> tt, String querySpecification,
+                           Map<String, Object> queryParameters) {
+        throw new UnsupportedOperationException("the reference engine has no query language");
+    }
+
+    private static long param(Map<String, Object> parameters, String name) {
+        return ((Number) parameters.get(name)).longValue();
+    }
+
+    private Account read(ReferenceTransaction<Account> tt, long id) {
+        return store.read(tt, id);
+    }
+
+    // creates the account, or replaces it if it exists
+    private void create(ReferenceTransaction<Account> tt, long id, Account account) {
+        store.put(tt, id, account);
+    }
+
+    // Updates an account that exists, like SET after a MATCH; returns false if there is no such account.
+    private boolean update(ReferenceTransaction<Account> tt, long id, UnaryOperator<Account> function) {
+        if (read(tt, id) == null) {
+            return false;
+        }
+        // under read committed the account may have been deleted since the read
+        return store.update(tt, id, a -> a == null ? null : function.apply(a)) != null;
+    }
+
+    // the ids of the accounts on the transfer cycle through the account, at most 4 hops long; empty if there is none
+    private long[] cycle(ReferenceTransaction<Account> tt, long id) {
+        final long[] ids = new long[4];
+        long current = id;
+        for (int hops = 0; hops < ids.length; hops++) {
+            final Account account = read(tt, current);
+            if (account == null || account.getTransferCount() == 0) {
+                return new long[0];
+            }
+            ids[hops] = current;
+            current = account.getTransferTarget(0);
+            if (current == id) {
+                return Arrays.copyOf(ids, hops + 1);
+            }
+        }
+        return new long[0];
+    }
+
+    private List<Long> balances(ReferenceTransaction<Account> tt, long[] ids) {
+        final List<Long> balances = new ArrayList<>(ids.length + 1);
+        for (long id : ids) {
+            balances.add(read(tt, id).getBalance());
+        }
+        // the path ends where it starts
+        balances.add(balances.get(0));
+        return balances;
+    }
+
+    @Override
+    public void nukeDatabase() {
+        store.clear();
+    }
+
+    @Override
+    public boolean supportsNamespaces() {
+        return true;
+    }
+
+    @Override
+    public void nukeNamespace() {
+        store.removeRange(idBase, idBase + NAMESPACE_SIZE - 1);
+    }
+
+    @Override
+    public void atomicityInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withName("AliceAcc").withTransHistory(100));
+            create(tt, id(2), Account.EMPTY.withName("BobAcc").withTransHistory(50, 150));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public void atomicityC(Map<String, Object> parameters) {
+        final long account1Id = param(parameters, "account1Id");
+        final long account2Id = param(parameters, "account2Id");
+        final long newTrans = param(parameters, "newTrans");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            if (update(tt, account1Id, a -> a.appendTransHistory(newTrans)
+                    .withTransfer(account2Id, newTrans, null))) {
+                create(tt, account2Id, Account.EMPTY.withIncomingTransfer(account1Id));
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Boolean atomicityRB(Map<String, Object> parameters) {
+        final long account2Id = param(parameters, "account2Id");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final long newTrans = param(parameters, "newTrans");
+            update(tt, param(parameters, "account1Id"), a -> a.appendTransHistory(newTrans));
+            if (read(tt, account2Id) != null) {
+                abortTransaction(tt);
+                return false;
+            }
+            create(tt, account2Id, Account.EMPTY.withTransHistory());
+            commitTransaction(tt);
+            return true;
+        }
+    }
+
+    @Override
+    public Map<String, Object> atomicityCheck() {
+        return atomicityCheck(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Map<String, Object> atomicityCheck(Map<String, Object> parameters) {
+        return atomicityCheck(param(parameters, "minId"), param(parameters, "maxId"));
+    }
+
+    private Map<String, Object> atomicityCheck(long minId, long maxId) {
+        final long[] counts = new long[3];
+        store.scan(minId, maxId, (id, a) -> {
+            counts[0]++;
+            if (a.getName() != null) {
+                counts[1]++;
+            }
+            if (a.getTransHistory() != null) {
+                counts[2] += a.getTransHistory().length;
+            }
+        });
+        return ImmutableMap.of("numAccounts", counts[0], "numNames", counts[1], "numTransferred", counts[2]);
+    }
+
+    @Override
+    public void g0Init() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withVersionHistory(0).withTransfer(id(2), Account.NULL, new long[] {0}));
+            create(tt, id(2), Account.EMPTY.withVersionHistory(0).withIncomingTransfer(id(1)));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> g0(Map<String, Object> parameters) {
+        final long account1Id = param(parameters, "account1Id");
+        final long account2Id = param(parameters, "account2Id");
+        final long transactionId = param(parameters, "transactionId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a1 = read(tt, account1Id);
+            if (a1 != null && a1.transferTo(account2Id) >= 0 && read(tt, account2Id) != null) {
+                // the transfer is stored with a1, so a1 and t are updated together
+                update(tt, account1Id, a -> a.appendVersionHistory(transactionId)
+                        .appendTransferVersionHistory(a.transferTo(account2Id), transactionId));
+                update(tt, account2Id, a -> a.appendVersionHistory(transactionId));
+            }
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> g0check(Map<String, Object> parameters) {
+        final long account2Id = param(parameters, "account2Id");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a1 = read(tt, param(parameters, "account1Id"));
+            final Account a2 = read(tt, account2Id);
+            if (a1 == null || a2 == null || a1.transferTo(account2Id) < 0) {
+                throw new IllegalStateException("G0 result empty");
+            }
+            final long[] tVersionHistory = a1.getTransferVersionHistory(a1.transferTo(account2Id));
+            commitTransaction(tt);
+            return ImmutableMap.of("a1VersionHistory", Longs.asList(a1.getVersionHistory()),
+                    "tVersionHistory", Longs.asList(tVersionHistory),
+                    "a2VersionHistory", Longs.asList(a2.getVersionHistory()));
+        }
+    }
+
+    @Override
+    public void g1aInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withBalance(99));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> g1aW(Map<String, Object> parameters) {
+        final long accountId = param(parameters, "accountId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            if (read(tt, accountId) == null) {
+                throw new IllegalStateException("G1a1 Result empty");
+            }
+            delay((Long) parameters.get("sleepTime"));
+            update(tt, accountId, a -> a.withBalance(200));
+            interleave((Long) parameters.get("sleepTime"));
+            abortTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> g1aR(Map<String, Object> parameters) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a = read(tt, param(parameters, "accountId"));
+            if (a == null) {
+                throw new IllegalStateException("G1a T2 Result empty");
+            }
+            commitTransaction(tt);
+            return ImmutableMap.of("aBalance", a.getBalance());
+        }
+    }
+
+    @Override
+    public void g1bInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withBalance(99));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> g1bW(Map<String, Object> parameters) {
+        final long accountId = param(parameters, "accountId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final long even = param(parameters, "even");
+            update(tt, accountId, a -> a.withBalance(even));
+            sleep((Long) parameters.get("sleepTime"));
+            final long odd = param(parameters, "odd");
+            update(tt, accountId, a -> a.withBalance(odd));
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> g1bR(Map<String, Object> parameters) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a = read(tt, param(parameters, "accountId"));
+            if (a == null) {
+                throw new IllegalStateException("G1b T2 Result empty");
+            }
+            commitTransaction(tt);
+            return ImmutableMap.of("aBalance", a.getBalance());
+        }
+    }
+
+    @Override
+    public void g1cInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withBalance(0));
+            create(tt, id(2), Account.EMPTY.withBalance(0));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> g1c(Map<String, Object> parameters) {
+        final long transactionId = param(parameters, "transactionId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            update(tt, param(parameters, "account1Id"), a -> a.withBalance(transactionId));
+            final Account a2 = read(tt, param(parameters, "account2Id"));
+            if (a2 == null) {
+                throw new IllegalStateException("G1c result empty");
+            }
+            commitTransaction(tt);
+            return ImmutableMap.of("account2Balance", a2.getBalance());
+        }
+    }
+
+    // IMP
+
+    @Override
+    public void impInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withBalance(1));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> impW(Map<String, Object> parameters) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            update(tt, param(parameters, "accountId"), a -> a.withBalance(a.getBalance() + 1));
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> impR(Map<String, Object> parameters) {
+        final long accountId = param(parameters, "accountId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account first = read(tt, accountId);
+            if (first == null) {
+                throw new IllegalStateException("IMP result1 empty");
+            }
+            interleave((Long) parameters.get("sleepTime"));
+            final Account second = read(tt, accountId);
+            if (second == null) {
+                throw new IllegalStateException("IMP result2 empty");
+            }
+            commitTransaction(tt);
+            return ImmutableMap.of("firstRead", first.getBalance(), "secondRead", second.getBalance());
+        }
+    }
+
+    // PMP
+
+    @Override
+    public void pmpInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY);
+            create(tt, id(2), Account.EMPTY);
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> pmpW(Map<String, Object> parameters) {
+        final long account1Id = param(parameters, "account1Id");
+        final long account2Id = param(parameters, "account2Id");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            if (read(tt, account1Id) != null && read(tt, account2Id) != null) {
+                update(tt, account1Id, a -> a.withTransfer(account2Id, Account.NULL, null));
+                update(tt, account2Id, a -> a.withIncomingTransfer(account1Id));
+            }
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> pmpR(Map<String, Object> parameters) {
+        final long account2Id = param(parameters, "account2Id");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account first = read(tt, account2Id);
+            final long firstRead = first == null ? 0 : first.getIncomingTransferCount();
+            interleave((Long) parameters.get("sleepTime"));
+            final Account second = read(tt, account2Id);
+            final long secondRead = second == null ? 0 : second.getIncomingTransferCount();
+            commitTransaction(tt);
+            return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
+        }
+    }
+
+    // the 4-cycle used by OTV and FR
+    private void createCycle() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            for (long i = 1; i <= 4; i++) {
+                create(tt, id(i), Account.EMPTY.withBalance(0).withTransfer(id(i % 4 + 1), Account.NULL, null)
+                        .withIncomingTransfer(id((i + 2) % 4 + 1)));
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    // increments the balance of every account on the cycle through the account
+    private void incrementCycle(long accountId) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            for (long id : cycle(tt, accountId)) {
+                update(tt, id, a -> a.withBalance(a.getBalance() + 1));
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    private Map<String, Object> readCycleTwice(Map<String, Object> parameters, String anomaly) {
+        final long accountId = param(parameters, "accountId");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final long[] ids1 = cycle(tt, accountId);
+            if (ids1.length == 0) {
+                throw new IllegalStateException(anomaly + " result1 empty");
+            }
+            final List<Long> firstRead = balances(tt, ids1);
+            interleave((Long) parameters.get("sleepTime"));
+            final long[] ids2 = cycle(tt, accountId);
+            if (ids2.length == 0) {
+                throw new IllegalStateException(anomaly + " result2 empty");
+            }
+            final List<Long> secondRead = balances(tt, ids2);
+            commitTransaction(tt);
+            return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
+        }
+    }
+
+    @Override
+    public void otvInit() {
+        createCycle();
+    }
+
+    @Override
+    public Map<String, Object> otvW(Map<String, Object> parameters) {
+        final Random random = new Random();
+        for (int i = 0; i < 100; i++) {
+            incrementCycle(id(random.nextInt((int) param(parameters, "cycleSize") + 1)));
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> otvR(Map<String, Object> parameters) {
+        return readCycleTwice(parameters, "OTV2");
+    }
+
+    @Override
+    public void frInit() {
+        createCycle();
+    }
+
+    @Override
+    public Map<String, Object> frW(Map<String, Object> parameters) {
+        incrementCycle(param(parameters, "accountId"));
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> frR(Map<String, Object> parameters) {
+        return readCycleTwice(parameters, "FR2");
+    }
+
+    // LU
+
+    @Override
+    public void luInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            create(tt, id(1), Account.EMPTY.withNumTransferred(0));
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> luW(Map<String, Object> parameters) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final long target = nextUnlabelledId.decrementAndGet();
+            update(tt, param(parameters, "account1Id"), a -> a.withTransfer(target, Account.NULL, null)
+                    .withNumTransferred(a.getNumTransferred() + 1));
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> luR(Map<String, Object> parameters) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a = read(tt, param(parameters, "accountId"));
+            if (a == null) {
+                throw new IllegalStateException("LU result empty");
+            }
+            commitTransaction(tt);
+            return ImmutableMap.of("numTransferEdges", (long) a.getTransferCount(),
+                    "numTransferred", a.getNumTransferred());
+        }
+    }
+
+    @Override
+    public void wsInit() {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            // create 10 pairs of accounts with indices (1,2), ..., (19,20)
+            for (int i = 1; i <= 10; i++) {
+                create(tt, id(2 * i - 1), Account.EMPTY.withBalance(70));
+                create(tt, id(2 * i), Account.EMPTY.withBalance(80));
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public Map<String, Object> wsW(Map<String, Object> parameters) {
+        final long account1Id = param(parameters, "account1Id");
+        final long account2Id = param(parameters, "account2Id");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account a1 = read(tt, account1Id);
+            final Account a2 = read(tt, account2Id);
+            if (a1 != null && a2 != null && a1.getBalance() + a2.getBalance() >= 100) {
+                interleave((Long) parameters.get("sleepTime"));
+                final long accountId = new Random().nextBoolean() ? account1Id : account2Id;
+                update(tt, accountId, a -> a.withBalance(a.getBalance() - 100));
+            }
+            commitTransaction(tt);
+        }
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public Map<String, Object> wsR(Map<String, Object> parameters) {
+        final List<Map<String, Object>> violations = wsViolations(parameters);
+        return violations.isEmpty() ? ImmutableMap.of() : violations.get(0);
+    }
+
+    @Override
+    public List<Map<String, Object>> wsViolations(Map<String, Object> parameters) {
+        // balances of the pairs (id, id+1) with odd id, keyed by (id + 1) / 2 as in BoltDriver
+        final TreeMap<Long, long[]> pairs = new TreeMap<>();
+        store.scan(idBase, idBase + NAMESPACE_SIZE - 1, (id, a) -> {
+            if (a.getBalance() != Account.NULL) {
+                final long[] pair = pairs.computeIfAbsent((id + 1) / 2, k -> new long[3]);
+                pair[id % 2 == 1 ? 0 : 1] += a.getBalance();
+                pair[2]++;
+            }
+        });
+        final List<Map<String, Object>> violations = new ArrayList<>();
+        for (Map.Entry<Long, long[]> e : pairs.entrySet()) {
+            final long[] pair = e.getValue();
+            if (pair[2] == 2 && pair[0] + pair[1] <= 0) {
+                violations.add(ImmutableMap.of("a1id", 2 * e.getKey() - 1, "a1balance", pair[0],
+                        "a2id", 2 * e.getKey(), "a2balance", pair[1]));
+            }
+        }
+        return violations;
+    }
+
+    // The background workload keeps the balances of accounts and loans, a loan is a record like an account. Only the
+    // transfers are recorded as edges, the engine has no edges of the other types.
+
+    @Override
+    public void workloadInit(Map<String, Object> parameters) {
+        final long numAccounts = param(parameters, "numAccounts");
+        final long numLoans = param(parameters, "numLoans");
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            final Account account = Account.EMPTY.withBalance(param(parameters, "balance"));
+            for (long i = 0; i < numAccounts; i++) {
+                create(tt, id(i), account);
+            }
+            final Account loan = Account.EMPTY.withBalance(param(parameters, "loanAmount"));
+            for (long i = numAccounts; i < numAccounts + numLoans; i++) {
+                create(tt, id(i), loan);
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    // moves the amount from the balance of the source to that of the target
+    private void move(long sourceId, long targetId, long amount, boolean transfer) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            if (read(tt, sourceId) != null && read(tt, targetId) != null) {
+                update(tt, sourceId, a -> {
+                    final Account source = a.withBalance(a.getBalance() - amount);
+                    return transfer ? source.withTransfer(targetId, amount, null) : source;
+                });
+                update(tt, targetId, a -> {
+                    final Account target = a.withBalance(a.getBalance() + amount);
+                    return transfer ? target.withIncomingTransfer(sourceId) : target;
+                });
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public void transfer(Map<String, Object> parameters) {
+        move(param(parameters, "account1Id"), param(parameters, "account2Id"), param(parameters, "amount"), true);
+    }
+
+    @Override
+    public void deposit(Map<String, Object> parameters) {
+        move(param(parameters, "loanId"), param(parameters, "accountId"), param(parameters, "amount"), false);
+    }
+
+    @Override
+    public void withdraw(Map<String, Object> parameters) {
+        move(param(parameters, "account1Id"), param(parameters, "account2Id"), param(parameters, "amount"), false);
+    }
+
+    @Override
+    public void repay(Map<String, Object> parameters) {
+        move(param(parameters, "accountId"), param(parameters, "loanId"), param(parameters, "amount"), false);
+    }
+
+    // Bulk loaded nodes of every label are records with the properties of an account. Only the transfers are recorded
+    // as edges, like in the background workload.
+
+    // a list of numbers of a bulk loaded node or edge as an array, null if the property is not set
+    private static long[] longs(Map<?, ?> properties, String name) {
+        final Object value = properties == null ? null : properties.get(name);
+        if (value == null) {
+            return null;
+        }
+        return Longs.toArray(((List<?>) value).stream().map(v -> (Number) v).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void bulkLoadNodes(String label, List<Map<String, Object>> nodes) {
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            for (Map<String, Object> node : nodes) {
+                Account account = Account.EMPTY;
+                if (node.get("balance") != null) {
+                    account = account.withBalance(param(node, "balance"));
+                }
+                if (node.get("numTransferred") != null) {
+                    account = account.withNumTransferred(param(node, "numTransferred"));
+                }
+                if (node.get("name") != null) {
+                    account = account.withName(node.get("name").toString());
+                }
+                if (node.get("transHistory") != null) {
+                    account = account.withTransHistory(longs(node, "transHistory"));
+                }
+                if (node.get("versionHistory") != null) {
+                    account = account.withVersionHistory(longs(node, "versionHistory"));
+                }
+                create(tt, param(node, "id"), account);
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    @Override
+    public void bulkLoadEdges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+        if (!"transfer".equals(type)) {
+            return;
+        }
+        try (ReferenceTransaction<Account> tt = startTransaction()) {
+            for (Map<String, Object> edge : edges) {
+                final long fromId = param(edge, "fromId");
+                final long toId = param(edge, "toId");
+                final Map<?, ?> properties = (Map<?, ?>) edge.get("properties");
+                final Object amount = properties == null ? null : properties.get("amount");
+                final long transferAmount = amount == null ? Account.NULL : ((Number) amount).longValue();
+                final long[] versionHistory = longs(properties, "versionHistory");
+                update(tt, fromId, a -> a.withTransfer(toId, transferAmount, versionHistory));
+                update(tt, toId, a -> a.withIncomingTransfer(fromId));
+            }
+            commitTransaction(tt);
+        }
+    }
+
+    // Snapshots
+
+    private static final int DUMP_BATCH = 10_000;
+
+    @Override
+    public boolean supportsSnapshots() {
+        return true;
+    }
+
+    // Dumps every record as an Account and its transfers, the reference engine does not keep the labels.
+    @Override
+    public void dumpNamespace(GraphSink sink) {
+        final long minId = getIdBase();
+        final long maxId = getIdBase() + NAMESPACE_SIZE - 1;
+        final List<Map<String, Object>> nodes = new ArrayList<>();
+        store.scan(minId, maxId, (id, a) -> {
+            final Map<String, Object> node = new HashMap<>();
+            node.put("id", id - minId);
+            if (a.getBalance() != Account.NULL) {
+                node.put("balance", a.getBalance());
+            }
+            if (a.getNumTransferred() != Account.NULL) {
+                node.put("numTransferred", a.getNumTransferred());
+            }
+            if (a.getName() != null) {
+                node.put("name", a.getName());
+            }
+            if (a.getTransHistory() != null) {
+                node.put("transHistory", Longs.asList(a.getTransHistory()));
+            }
+            if (a.getVersionHistory() != null) {
+                node.put("versionHistory", Longs.asList(a.getVersionHistory()));
+            }
+            nodes.add(node);
+            if (nodes.size() == DUMP_BATCH) {
+                sink.nodes("Account", new ArrayList<>(nodes));
+                nodes.clear();
+            }
+        });
+        if (!nodes.isEmpty()) {
+            sink.nodes("Account", nodes);
+        }
+        final List<Map<String, Object>> edges = new ArrayList<>();
+        store.scan(minId, maxId, (id, a) -> {
+            for (int i = 0; i < a.getTransferCount(); i++) {
+                final long target = a.getTransferTarget(i);
+                // the unlabelled targets of LU are outside of every namespace
+                if (target < minId || target > maxId) {
+                    continue;
+                }
+                final Map<String, Object> properties = new HashMap<>();
+                if (a.getTransferAmount(i) != Account.NULL) {
+                    properties.put("amount", a.getTransferAmount(i));
+                }
+                if (a.getTransferVersionHistory(i) != null) {
+                    properties.put("versionHistory", Longs.asList(a.getTransferVersionHistory(i)));
+                }
+                final Map<String, Object> edge = new HashMap<>(4);
+                edge.put("fromId", id - minId);
+                edge.put("toId", target - minId);
+                edge.put("properties", properties);
+                edges.add(edge);
+                if (edges.size() == DUMP_BATCH) {
+                    sink.edges("Account", "transfer", "Account", new ArrayList<>(edges));
+                    edges.clear();
+                }
+            }
+        });
+        if (!edges.isEmpty()) {
+            sink.edges("Account", "transfer", "Account", edges);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package ldbc.finbench.acid.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+// Multi-version store of immutable values keyed by long ids: the storage and concurrency control of the reference
+// engine. Commits are totally ordered by a logical clock; a commit installs a new version of every record it wrote
+// and then advances the clock, so snapshots taken from the clock never see a partial commit. Write locks are held
+// until the end of the transaction under every isolation level, see IsolationLevel for the read side.
+public class ReferenceStore<V> {
+
+    // visitor of scans
+    public interface Visitor<V> {
+        void visit(long id, V value);
+    }
+
+    public static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 10_000;
+    // the oldest snapshot of the active transactions is recomputed every GC_INTERVAL commits
+    private static final int GC_INTERVAL = 64;
+
+    private final IsolationLevel isolationLevel;
+    private final long lockTimeoutNanos;
+    private final RecordTable<V> records = new RecordTable<>();
+    // timestamp of the last commit, starts at 1 so that 0 means "no snapshot yet"
+    private final AtomicLong clock = new AtomicLong(1);
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final Set<ReferenceTransaction<V>> active = ConcurrentHashMap.newKeySet();
+    private final Object commitLock = new Object();
+    private final Object ssiLock = new Object();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong aborts = new AtomicLong();
+    // no active transaction reads at an older snapshot, versions and SIREAD locks older than that can go
+    private volatile long oldestSnapshot = 1;
+
+    public ReferenceStore(IsolationLevel isolationLevel) {
+        this(isolationLevel, DEFAULT_LOCK_TIMEOUT_MILLIS);
+    }
+
+    public ReferenceStore(IsolationLevel isolationLevel, long lockTimeoutMillis) {
+        this.isolationLevel = isolationLevel;
+        this.lockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+    }
+
+    public IsolationLevel getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getAborts() {
+        return aborts.get();
+    }
+
+    public ReferenceTransaction<V> begin() {
+        final ReferenceTransaction<V> tx = new ReferenceTransaction<>(this, nextSeq.incrementAndGet());
+        // registered before the snapshot is taken: the garbage collection either sees the snapshot or ran before it
+        active.add(tx);
+        tx.startTs = clock.get();
+        return tx;
+    }
+
+    // the value of the record as seen by the transaction, null if it does not exist
+    public V read(ReferenceTransaction<V> tx, long id) {
+        checkActive(tx);
+        switch (isolationLevel) {
+            case READ_COMMITTED:
+                return readCommitted(tx, id, clock.get());
+            case SNAPSHOT_ISOLATION:
+                return readCommitted(tx, id, tx.startTs);
+            case SERIALIZABLE_2PL:
+                return readLocked(tx, records.getOrCreate(id));
+            default:
+                return readSnapshotTracked(tx, records.getOrCreate(id));
+        }
+    }
+
+    // Write-locks the record and stages the result of the function, null deletes the record. The function gets the
+    // value the write is based on: the latest committed value under READ_COMMITTED and SERIALIZABLE_2PL, the
+    // snapshot value under snapshot isolation, where a record updated since the snapshot aborts the transaction.
+    public V update(ReferenceTransaction<V> tx, long id, UnaryOperator<V> function) {
+        checkActive(tx);
+        final Record<V> record = records.getOrCreate(id);
+        final V value = function.apply(lockExclusive(tx, record));
+        tx.writes.put(record, value);
+        return value;
+    }
+
+    public void put(ReferenceTransaction<V> tx, long id, V value) {
+        update(tx, id, v -> value);
+    }
+
+    public void delete(ReferenceTransaction<V> tx, long id) {
+        update(tx, id, v -> null);
+    }
+
+    public void commit(ReferenceTransaction<V> tx) {
+        checkActive(tx);
+        if (isolationLevel == IsolationLevel.SERIALIZABLE_SSI) {
+            final boolean pivot;
+            synchronized (ssiLock) {
+                pivot = tx.inConflict && tx.outConflict;
+                if (!pivot) {
+                    // from here on readers and writers treat the transaction as committed
+                    tx.status = ReferenceTransaction.Status.COMMITTED;
+                }
+            }
+            if (pivot) {
+                throw abort(tx, "incoming and outgoing rw-antidependencies");
+            }
+        }
+        if (tx.writes.isEmpty()) {
+            tx.commitTs = clock.get();
+        } else {
+            synchronized (commitLock) {
+                final long commitTs = clock.get() + 1;
+                final long oldest = oldestSnapshot;
+                for (Map.Entry<Record<V>, V> write : tx.writes.entrySet()) {
+                    final Record<V> record = write.getKey();
+                    synchronized (record) {
+                        record.head = new Version<>(commitTs, write.getValue(), tx, record.head);
+                        record.prune(oldest);
+                    }
+                }
+                tx.commitTs = commitTs;
+                clock.set(commitTs);
+            }
+        }
+        tx.status = ReferenceTransaction.Status.COMMITTED;
+        release(tx);
+        if (commits.incrementAndGet() % GC_INTERVAL == 0) {
+            collectGarbage();
+        }
+    }
+
+    // Rolls the transaction back, does nothing if it already ended.
+    public void abort(ReferenceTransaction<V> tx) {
+        if (tx.status != ReferenceTransaction.Status.ACTIVE) {
+            return;
+        }
+        tx.status = ReferenceTransaction.Status.ABORTED;
+        release(tx);
+        aborts.incrementAndGet();
+    }
+
+    // rolls the transaction back and returns the exception that reports why, for the caller to throw
+    private TransactionAbortedException abort(ReferenceTransaction<V> tx, String reason) {
+        abort(tx);
+        return new TransactionAbortedException(tx + " aborted: " + reason);
+    }
+
+    // Visits the committed values with minId <= id <= maxId. Scans take no locks and are meant for checks and loads
+    // outside of concurrent transactions: they are not protected against phantoms.
+    public void scan(long minId, long maxId, Visitor<V> visitor) {
+        final long snapshot = clock.get();
+        records.forEach(record -> {
+            if (record.id >= minId && record.id <= maxId) {
+                final V value;
+                synchronized (record) {
+                    value = record.valueAt(snapshot);
+                }
+                if (value != null) {
+                    visitor.visit(record.id, value);
+                }
+            }
+        });
+    }
+
+    // Removes the records with minId <= id <= maxId, without a transaction. No transaction may use them.
+    public void removeRange(long minId, long maxId) {
+        records.removeRange(minId, maxId);
+    }
+
+    public void clear() {
+        records.clear();
+    }
+
+    private static void checkActive(ReferenceTransaction<?> tx) {
+        if (tx.status != ReferenceTransaction.Status.ACTIVE) {
+            throw new IllegalStateException(tx + " is not active");
+        }
+    }
+
+    private V readCommitted(ReferenceTransaction<V> tx, long id, long snapshot) {
+        final Record<V> record = records.get(id);
+        if (record == null) {
+            return null;
+        }
+        if (tx.writes.containsKey(record)) {
+            return tx.writes.get(record);
+        }
+        synchronized (record) {
+            return record.valueAt(snapshot);
+        }
+    }
+
+    // shared lock until the end of the transaction (2PL)
+    private V readLocked(ReferenceTransaction<V> tx, Record<V> record) {
+        if (tx.writes.containsKey(record)) {
+            return tx.writes.get(record);
+        }
+        boolean locked = true;
+        V value = null;
+        synchronized (record) {
+            final long deadline = System.nanoTime() + lockTimeoutNanos;
+            while (record.writer != null && record.writer != tx) {
+                if (!await(tx, record, record.writer, deadline)) {
+                    locked = false;
+                    break;
+                }
+            }
+            if (locked) {
+                if (record.addReader(tx)) {
+                    tx.reads.add(record);
+                }
+                value = record.head == null ? null : record.head.value;
+            }
+        }
+        if (!locked) {
+            throw abort(tx, "lock conflict on " + record.id);
+        }
+        return value;
+    }
+
+    // Snapshot read that leaves a SIREAD lock and records the rw-antidependencies to the writers of newer versions
+    // (SSI). A reader of a version whose writer committed with an outgoing rw-antidependency is the third
+    // transaction of a dangerous structure and aborts.
+    private V readSnapshotTracked(ReferenceTransaction<V> tx, Record<V> record) {
+        if (tx.writes.containsKey(record)) {
+            return tx.writes.get(record);
+        }
+        List<ReferenceTransaction<V>> writers = null;
+        final V value;
+        synchronized (record) {
+            record.removeStaleReaders(oldestSnapshot);
+            if (record.addReader(tx)) {
+                tx.reads.add(record);
+            }
+            Version<V> version = record.head;
+            while (version != null && version.commitTs > tx.startTs) {
+                writers = add(writers, version.writer);
+                version = version.older;
+            }
+            value = version == null ? null : version.value;
+            if (record.writer != null && record.writer != tx) {
+                writers = add(writers, record.writer);
+            }
+        }
+        if (writers != null) {
+            boolean pivot = false;
+            synchronized (ssiLock) {
+                for (ReferenceTransaction<V> writer : writers) {
+                    if (writer.status == ReferenceTransaction.Status.ABORTED) {
+                        continue;
+                    }
+                    if (writer.status == ReferenceTransaction.Status.COMMITTED && writer.outConflict) {
+                        pivot = true;
+                        break;
+                    }
+                    writer.inConflict = true;
+                    tx.outConflict = true;
+                }
+            }
+            if (pivot) {
+                throw abort(tx, "read of " + record.id + " written by a committed pivot");
+            }
+        }
+        return value;
+    }
+
+    // Takes the write lock and returns the value the write is based on.
+    private V lockExclusive(ReferenceTransaction<V> tx, Record<V> record) {
+        if (tx.writes.containsKey(record)) {
+            return tx.writes.get(record);
+        }
+        String conflict = null;
+        List<ReferenceTransaction<V>> readers = null;
+        V value = null;
+        synchronized (record) {
+            final long deadline = System.nanoTime() + lockTimeoutNanos;
+            ReferenceTransaction<V> holder;
+            while ((holder = lockHolder(tx, record)) != null) {
+                if (!await(tx, record, holder, deadline)) {
+                    conflict = "lock conflict on " + record.id;
+                    break;
+                }
+            }
+            if (conflict == null) {
+                final Version<V> head = record.head;
+                if (head != null && head.commitTs > tx.startTs && (isolationLevel == IsolationLevel.SNAPSHOT_ISOLATION
+                        || isolationLevel == IsolationLevel.SERIALIZABLE_SSI)) {
+                    conflict = "concurrent update of " + record.id;
+                } else {
+                    record.writer = tx;
+                    value = head == null ? null : head.value;
+                    tx.writes.put(record, value);
+                    if (isolationLevel == IsolationLevel.SERIALIZABLE_SSI) {
+                        readers = concurrentReaders(tx, record);
+                    }
+                }
+            }
+        }
+        if (conflict != null) {
+            throw abort(tx, conflict);
+        }
+        if (readers != null) {
+            boolean pivot = false;
+            synchronized (ssiLock) {
+                for (ReferenceTransaction<V> reader : readers) {
+                    if (reader.status == ReferenceTransaction.Status.ABORTED) {
+                        continue;
+                    }
+                    if (reader.status == ReferenceTransaction.Status.COMMITTED && reader.inConflict) {
+                        pivot = true;
+                        break;
+                    }
+                    reader.outConflict = true;
+                    tx.inConflict = true;
+                }
+            }
+            if (pivot) {
+                throw abort(tx, "write of " + record.id + " read by a committed pivot");
+            }
+        }
+        return value;
+    }
+
+    // the transaction that prevents tx from taking the write lock, if any
+    private ReferenceTransaction<V> lockHolder(ReferenceTransaction<V> tx, Record<V> record) {
+        if (record.writer != null && record.writer != tx) {
+            return record.writer;
+        }
+        if (isolationLevel == IsolationLevel.SERIALIZABLE_2PL && record.readers != null) {
+            for (ReferenceTransaction<V> reader : record.readers) {
+                if (reader != tx) {
+                    return reader;
+                }
+            }
+        }
+        return null;
+    }
+
+    // the SIREAD lock holders of the record that are concurrent with tx, called holding the record's monitor
+    private List<ReferenceTransaction<V>> concurrentReaders(ReferenceTransaction<V> tx, Record<V> record) {
+        record.removeStaleReaders(oldestSnapshot);
+        List<ReferenceTransaction<V>> readers = null;
+        if (record.readers != null) {
+            for (ReferenceTransaction<V> reader : record.readers) {
+                if (reader != tx && reader.commitTs > tx.startTs) {
+                    readers = add(readers, reader);
+                }
+            }
+        }
+        return readers;
+    }
+
+    private static <T> List<T> add(List<T> list, T element) {
+        final List<T> result = list == null ? new ArrayList<>(2) : list;
+        result.add(element);
+        return result;
+    }
+
+    // Waits for the lock holder, unless the holder waits (transitively) for tx: then tx closes a cycle of waiting
+    // transactions and is the deadlock victim. Called holding the record's monitor, returns false if tx has to abort.
+    private boolean await(ReferenceTransaction<V> tx, Record<V> record, ReferenceTransaction<V> holder,
+                          long deadline) {
+        // published before the cycle check, so of two transactions that start waiting for each other at the same
+        // time at least one sees the cycle
+        tx.waitingFor = holder;
+        try {
+            int hops = 0;
+            for (ReferenceTransaction<V> t = holder; t != null && hops <= active.size(); t = t.waitingFor, hops++) {
+                if (t == tx) {
+                    return false;
+                }
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(record, remaining);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            tx.waitingFor = null;
+        }
+    }
+
+    // Releases the locks of an ended transaction. SIREAD locks of committed transactions stay until they are stale.
+    private void release(ReferenceTransaction<V> tx) {
+        for (Record<V> record : tx.writes.keySet()) {
+            synchronized (record) {
+                if (record.writer == tx) {
+                    record.writer = null;
+                }
+                record.notifyAll();
+            }
+        }
+        if (isolationLevel == IsolationLevel.SERIALIZABLE_2PL
+                || tx.status == ReferenceTransaction.Status.ABORTED) {
+            for (Record<V> record : tx.reads) {
+                synchronized (record) {
+                    record.readers.remove(tx);
+                    record.notifyAll();
+                }
+            }
+        }
+        tx.writes.clear();
+        tx.reads.clear();
+        active.remove(tx);
+    }
+
+    private void collectGarbage() {
+        long oldest = clock.get();
+        for (ReferenceTransaction<V> tx : active) {
+            final long startTs = tx.startTs;
+            if (startTs != 0 && startTs < oldest) {
+                oldest = startTs;
+            }
+        }
+        oldestSnapshot = oldest;
+    }
+}
@@ -0,0 +1,57 @@
+package ldbc.finbench.acid.reference;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A transaction of the reference engine. It is used by one thread at a time; closing an active transaction aborts it.
+public class ReferenceTransaction<V> implements AutoCloseable {
+
+    enum Status {
+        ACTIVE, COMMITTED, ABORTED
+    }
+
+    final ReferenceStore<V> store;
+    final long seq;
+    // 0 until the snapshot is taken, see ReferenceStore.begin()
+    volatile long startTs;
+    volatile long commitTs = Long.MAX_VALUE;
+    volatile Status status = Status.ACTIVE;
+    // the lock holder the transaction waits for, to detect deadlocks
+    volatile ReferenceTransaction<V> waitingFor;
+
+    // rw-antidependencies under SSI, guarded by the store's SSI lock
+    boolean inConflict;
+    boolean outConflict;
+
+    // the write-locked records with the values to install at commit, null deletes the record
+    final Map<Record<V>, V> writes = new LinkedHashMap<>();
+    // records with a shared (2PL) or SIREAD (SSI) lock of the transaction
+    final List<Record<V>> reads = new ArrayList<>();
+
+    ReferenceTransaction(ReferenceStore<V> store, long seq) {
+        this.store = store;
+        this.seq = seq;
+    }
+
+    public boolean isActive() {
+        return status == Status.ACTIVE;
+    }
+
+    public boolean isCommitted() {
+        return status == Status.COMMITTED;
+    }
+
+    @Override
+    public void close() {
+        if (status == Status.ACTIVE) {
+            store.abort(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "tx" + seq;
+    }
+}
@@ -0,0 +1,10 @@
+package ldbc.finbench.acid.reference;
+
+// Thrown when the reference engine aborts a transaction because of a conflict. The transaction is rolled back and
+// its locks are released before the exception is thrown.
+public class TransactionAbortedException extends RuntimeException {
+
+    public TransactionAbortedException(String message) {
+        super(message);
+    }
+}
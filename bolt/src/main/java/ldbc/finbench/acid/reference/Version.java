@@ -0,0 +1,19 @@
+package ldbc.finbench.acid.reference;
+
+// A committed value of a record. Versions are linked from the newest to the oldest; versions that no active
+// transaction can see anymore are cut off the chain.
+final class Version<V> {
+    final long commitTs;
+    // null if the record was deleted
+    final V value;
+    // the transaction that wrote the version, used to find rw-antidependencies under SSI
+    final ReferenceTransaction<V> writer;
+    Version<V> older;
+
+    Version(long commitTs, V value, ReferenceTransaction<V> writer, Version<V> older) {
+        this.commitTs = commitTs;
+        this.value = value;
+        this.writer = writer;
+        this.older = older;
+    }
+}
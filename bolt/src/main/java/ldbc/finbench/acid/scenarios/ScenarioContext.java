@@ -0,0 +1,196 @@
+package ldbc.finbench.acid.scenarios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.fixture.FixtureCache;
+import ldbc.finbench.acid.transactions.Interleaver;
+import ldbc.finbench.acid.transactions.TransactionThread;
+
+// What a scenario runs with: the driver in its current namespace, the pool of clients and the load factor by which
+// the scenario scales its transactions. At load 1 with a single key the scenarios run as the tests of AcidTest.
+public final class ScenarioContext {
+
+    private final TestDriver<?, ?, ?> driver;
+    private final ExecutorService executor;
+    private final int threads;
+    private int load = 1;
+    private long sleepMillis = 250;
+    private boolean interleave = true;
+    private int keys = 1;
+    private IntSupplier nextKey = () -> 0;
+    // the snapshots of the fixtures, null to create every fixture by its init
+    private FixtureCache fixtures;
+    // the latencies of the concurrently run transactions
+    private final List<Long> latencies = new ArrayList<>();
+
+    // the executor runs the clients on the given number of threads
+    public ScenarioContext(TestDriver<?, ?, ?> driver, ExecutorService executor, int threads) {
+        this.driver = driver;
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    public ScenarioContext setLoad(int load) {
+        this.load = load;
+        return this;
+    }
+
+    // how long the scenarios sleep (or at most wait for the conflicting transactions of a round) to overlap them
+    public ScenarioContext setSleepMillis(long sleepMillis) {
+        this.sleepMillis = sleepMillis;
+        return this;
+    }
+
+    // runs the scenarios with a control point (sleepTime) in rounds of a fixed interleaving instead of sleeping
+    public ScenarioContext setInterleave(boolean interleave) {
+        this.interleave = interleave;
+        return this;
+    }
+
+    // the number of keys the write transactions spread over and the key of the next transaction, which is only
+    // asked for by the thread that creates the transactions
+    public ScenarioContext setKeys(int keys, IntSupplier nextKey) {
+        this.keys = keys;
+        this.nextKey = nextKey;
+        return this;
+    }
+
+    // restores the fixtures from snapshots in the cache, by default every scenario creates its fixture
+    public ScenarioContext setFixtures(FixtureCache fixtures) {
+        this.fixtures = fixtures;
+        return this;
+    }
+
+    TestDriver<?, ?, ?> driver() {
+        return driver;
+    }
+
+    int load() {
+        return load;
+    }
+
+    long sleepMillis() {
+        return sleepMillis;
+    }
+
+    int keys() {
+        return keys;
+    }
+
+    int key() {
+        return nextKey.getAsInt();
+    }
+
+    long id(long localId) {
+        return driver.id(localId);
+    }
+
+    // the id of an account of the fixture copy of a key
+    long id(int key, long localId) {
+        return driver.id(key * TestDriver.KEY_STRIDE + localId);
+    }
+
+    // Whether the scenario runs in interleaved rounds of the given number of clients. A round only interleaves if all
+    // its clients run at once: a paused client holds its thread until the round is released.
+    boolean interleaves(int roundSize) {
+        return interleave && roundSize <= threads;
+    }
+
+    // the number of threads of the pool
+    int threads() {
+        return threads;
+    }
+
+    // Creates the fixture once, for key 0 only.
+    void initOnce(String name, Runnable init) {
+        if (fixtures == null) {
+            init.run();
+        } else {
+            fixtures.restore(driver, name, init);
+        }
+    }
+
+    // Creates the fixture once for every key. With a fixture cache the copies of all keys are built once and then
+    // restored by one bulk load, instead of one init per key and run.
+    void init(String name, Runnable init) {
+        initOnce(keys == 1 ? name : name + "-" + keys, () -> {
+            try {
+                for (int key = 0; key < keys; key++) {
+                    driver.setKey(key);
+                    init.run();
+                }
+            } finally {
+                driver.setKey(0);
+            }
+        });
+    }
+
+    // Runs the transactions concurrently and returns their results in order, null for the aborted ones.
+    List<Map<String, Object>> run(List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients)
+            throws InterruptedException {
+        return run(clients, Integer.MAX_VALUE, null, null);
+    }
+
+    // Runs the transactions in interleaved rounds of roundSize clients if the scenario interleaves them, otherwise
+    // concurrently: the paused clients of a round stop at the control point of their scenario until the other
+    // clients of the round executed (at most the sleep time), then finish.
+    List<Map<String, Object>> run(List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients,
+                                  int roundSize, IntUnaryOperator round, IntPredicate paused)
+            throws InterruptedException {
+        final long[] nanos = new long[clients.size()];
+        final List<Callable<Map<String, Object>>> timed = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            final int index = i;
+            final TransactionThread<Map<String, Object>, Map<String, Object>> client = clients.get(i);
+            timed.add(() -> {
+                final long start = System.nanoTime();
+                try {
+                    return client.call();
+                } finally {
+                    nanos[index] = System.nanoTime() - start;
+                }
+            });
+        }
+        final List<Future<Map<String, Object>>> futures;
+        if (interleaves(roundSize)) {
+            final int[] rounds = new int[clients.size()];
+            final boolean[] pausedClients = new boolean[clients.size()];
+            for (int i = 0; i < clients.size(); i++) {
+                rounds[i] = round.applyAsInt(i);
+                pausedClients[i] = paused.test(i);
+            }
+            futures = Interleaver.invokeAll(executor, timed, rounds, pausedClients, sleepMillis);
+        } else {
+            futures = executor.invokeAll(timed);
+        }
+        final List<Map<String, Object>> results = new ArrayList<>(clients.size());
+        for (Future<Map<String, Object>> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                results.add(null);
+            }
+        }
+        for (long latency : nanos) {
+            latencies.add(latency);
+        }
+        return results;
+    }
+
+    // the sorted latencies in nanoseconds of all transactions run concurrently so far
+    public long[] getLatencies() {
+        final long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
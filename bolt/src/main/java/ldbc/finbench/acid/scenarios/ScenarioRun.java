@@ -0,0 +1,47 @@
+package ldbc.finbench.acid.scenarios;
+
+// The outcome of one run of a scenario: how often the anomaly could be checked (observations) and how often it
+// showed. A run is starved if every transaction of one of its roles (writers or readers) aborted, then the absence of
+// anomalies proves nothing.
+public final class ScenarioRun {
+
+    private final int transactions;
+    private final int aborted;
+    private final int observations;
+    private final int anomalies;
+    private final boolean starved;
+
+    ScenarioRun(int transactions, int aborted, int observations, int anomalies, boolean starved) {
+        this.transactions = transactions;
+        this.aborted = aborted;
+        this.observations = observations;
+        this.anomalies = anomalies;
+        this.starved = starved;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public int getAborted() {
+        return aborted;
+    }
+
+    public int getObservations() {
+        return observations;
+    }
+
+    public int getAnomalies() {
+        return anomalies;
+    }
+
+    public boolean isStarved() {
+        return starved;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d transactions, %d aborted%s, %d anomalies in %d observations", transactions, aborted,
+                starved ? " (starved)" : "", anomalies, observations);
+    }
+}
@@ -0,0 +1,400 @@
+package ldbc.finbench.acid.scenarios;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.transactions.TransactionThread;
+
+// The scenarios of the test suite, shared by AcidTest, which asserts their outcome, and the isolation prober, which
+// escalates their load. Instead of asserting they count how often the anomaly could be checked and how often it
+// showed. The concurrent write scenarios create their fixture once per key and every transaction (or round of
+// transactions) picks its key; the atomicity scenarios run sequentially and OTV walks its cycle inside the driver,
+// so these use key 0 only.
+public final class Scenarios {
+
+    private Scenarios() {
+    }
+
+    private static List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients() {
+        return new ArrayList<>();
+    }
+
+    private static TransactionThread<Map<String, Object>, Map<String, Object>> client(
+            long i, Function<Map<String, Object>, Map<String, Object>> fn, Map<String, Object> parameters) {
+        return new TransactionThread<>(i, fn, parameters);
+    }
+
+    private static int aborted(List<Map<String, Object>> results, int from, int to, int step) {
+        int aborted = 0;
+        for (int i = from; i < to; i += step) {
+            if (results.get(i) == null) {
+                aborted++;
+            }
+        }
+        return aborted;
+    }
+
+    private static boolean sameCounts(Map<String, Object> expected, Map<String, Object> actual) {
+        return expected.get("numAccounts").equals(actual.get("numAccounts"))
+                && expected.get("numNames").equals(actual.get("numNames"))
+                && expected.get("numTransferred").equals(actual.get("numTransferred"));
+    }
+
+    private static Map<String, Object> plus(Map<String, Object> counts, long committed) {
+        final Map<String, Object> result = new HashMap<>(counts);
+        result.put("numAccounts", (long) counts.get("numAccounts") + committed);
+        result.put("numTransferred", (long) counts.get("numTransferred") + committed);
+        return result;
+    }
+
+    public static ScenarioRun atomicityC(ScenarioContext ctx) {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.initOnce("atomicity", d::atomicityInit);
+        final int n = 50 * ctx.load();
+        // only the accounts touched by this run are checked
+        final Map<String, Object> range = ImmutableMap.of("minId", ctx.id(1), "maxId", ctx.id(2 + n));
+        final Map<String, Object> before = d.atomicityCheck(range);
+        int aborted = 0;
+        for (int i = 0; i < n; i++) {
+            try {
+                d.atomicityC(ImmutableMap.of("account1Id", ctx.id(1), "account2Id", ctx.id(3 + i),
+                        "newTrans", 200 + i));
+            } catch (Exception e) {
+                aborted++;
+            }
+        }
+        final boolean anomaly = !sameCounts(plus(before, n - aborted), d.atomicityCheck(range));
+        return new ScenarioRun(n, aborted, 1, anomaly ? 1 : 0, aborted == n);
+    }
+
+    // every other transaction rolls back by design, so half of them abort
+    public static ScenarioRun atomicityRb(ScenarioContext ctx) {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.initOnce("atomicity", d::atomicityInit);
+        final int n = 50 * ctx.load();
+        final Map<String, Object> range = ImmutableMap.of("minId", ctx.id(1), "maxId", ctx.id(2 + n));
+        final Map<String, Object> before = d.atomicityCheck(range);
+        int aborted = 0;
+        for (int i = 0; i < n; i++) {
+            boolean successful;
+            try {
+                successful = d.atomicityRB(ImmutableMap.of("account1Id", ctx.id(1),
+                        "account2Id", ctx.id(i % 2 == 0 ? 2 : 3 + i), "newTrans", 200L));
+            } catch (Exception e) {
+                successful = false;
+            }
+            if (!successful) {
+                aborted++;
+            }
+        }
+        final boolean anomaly = !sameCounts(plus(before, n - aborted), d.atomicityCheck(range));
+        return new ScenarioRun(n, aborted, 1, anomaly ? 1 : 0, aborted == n);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ScenarioRun g0(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("g0", d::g0Init);
+        final int n = 200 * ctx.load();
+        final Set<Integer> keys = new HashSet<>();
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (int i = 1; i <= n; i++) {
+            final int key = ctx.key();
+            keys.add(key);
+            clients.add(client(i, d::g0, ImmutableMap.of("account1Id", ctx.id(key, 1), "account2Id", ctx.id(key, 2),
+                    "transactionId", i)));
+        }
+        final int aborted = aborted(ctx.run(clients), 0, n, 1);
+        int observations = 0;
+        int anomalies = 0;
+        for (int key : keys) {
+            final Map<String, Object> results = d.g0check(ImmutableMap.of("account1Id", ctx.id(key, 1),
+                    "account2Id", ctx.id(key, 2)));
+            if (!results.containsKey("a1VersionHistory")) {
+                continue;
+            }
+            observations++;
+            // the transactions that wrote all three histories must have written them in the same order
+            final List<Long> a1 = new ArrayList<>((List<Long>) results.get("a1VersionHistory"));
+            final List<Long> t = new ArrayList<>((List<Long>) results.get("tVersionHistory"));
+            final List<Long> a2 = new ArrayList<>((List<Long>) results.get("a2VersionHistory"));
+            a1.retainAll(t);
+            a1.retainAll(a2);
+            t.retainAll(a1);
+            a2.retainAll(a1);
+            if (!a1.equals(t) || !a1.equals(a2)) {
+                anomalies++;
+            }
+        }
+        return new ScenarioRun(n, aborted, observations, anomalies, aborted == n);
+    }
+
+    // Interleaved, each reader reads while the writer of its round has written but not yet aborted.
+    public static ScenarioRun g1a(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("g1a", d::g1aInit);
+        final int c = 5 * ctx.load();
+        // every copy of the fixture starts with the same balance
+        final long expected = (long) d.g1aR(ImmutableMap.of("accountId", ctx.id(0, 1))).get("aBalance");
+        final int[] keys = new int[c];
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (int i = 0; i < c; i++) {
+            keys[i] = ctx.key();
+            clients.add(client(i, d::g1aW, ImmutableMap.of("accountId", ctx.id(keys[i], 1),
+                    "sleepTime", ctx.sleepMillis())));
+        }
+        for (int i = 0; i < c; i++) {
+            clients.add(client(i, d::g1aR, ImmutableMap.of("accountId", ctx.id(keys[i], 1))));
+        }
+        final List<Map<String, Object>> results = ctx.run(clients, 2, i -> i % c, i -> i < c);
+        int observations = 0;
+        int anomalies = 0;
+        for (int i = c; i < 2 * c; i++) {
+            if (results.get(i) != null) {
+                observations++;
+                if ((long) results.get(i).get("aBalance") != expected) {
+                    anomalies++;
+                }
+            }
+        }
+        final int abortedW = aborted(results, 0, c, 1);
+        final int abortedR = aborted(results, c, 2 * c, 1);
+        return new ScenarioRun(2 * c, abortedW + abortedR, observations, anomalies, abortedW == c || abortedR == c);
+    }
+
+    public static ScenarioRun g1b(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("g1b", d::g1bInit);
+        final int c = 20 * ctx.load();
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (int i = 0; i < c; i++) {
+            clients.add(client(i, d::g1bW, ImmutableMap.of("accountId", ctx.id(ctx.key(), 1), "even", 200L,
+                    "odd", 99L, "sleepTime", 1L)));
+        }
+        for (int i = 0; i < c; i++) {
+            clients.add(client(i, d::g1bR, ImmutableMap.of("accountId", ctx.id(ctx.key(), 1))));
+        }
+        final List<Map<String, Object>> results = ctx.run(clients);
+        int observations = 0;
+        int anomalies = 0;
+        for (int i = c; i < 2 * c; i++) {
+            if (results.get(i) != null) {
+                observations++;
+                if ((long) results.get(i).get("aBalance") % 2 != 1) {
+                    anomalies++;
+                }
+            }
+        }
+        final int abortedW = aborted(results, 0, c, 1);
+        final int abortedR = aborted(results, c, 2 * c, 1);
+        return new ScenarioRun(2 * c, abortedW + abortedR, observations, anomalies, abortedW == c || abortedR == c);
+    }
+
+    public static ScenarioRun g1c(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("g1c", d::g1cInit);
+        final int c = 100 * ctx.load();
+        final Random random = new Random();
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (long i = 1; i <= c; i++) {
+            final int key = ctx.key();
+            final boolean order = random.nextBoolean();
+            clients.add(client(i, d::g1c, ImmutableMap.of("account1Id", ctx.id(key, order ? 1 : 2),
+                    "account2Id", ctx.id(key, order ? 2 : 1), "transactionId", i)));
+        }
+        final List<Map<String, Object>> results = ctx.run(clients);
+        int observations = 0;
+        int anomalies = 0;
+        for (int i = 1; i <= c; i++) {
+            final Map<String, Object> result1 = results.get(i - 1);
+            if (result1 == null) {
+                continue;
+            }
+            final int read = ((Long) result1.get("account2Balance")).intValue();
+            if (read == 0) {
+                continue;
+            }
+            observations++;
+            // reading the write of an aborted transaction, or of a transaction that read ours, is a cycle
+            final Map<String, Object> result2 = results.get(read - 1);
+            if (result2 == null || ((Long) result2.get("account2Balance")).intValue() == i) {
+                anomalies++;
+            }
+        }
+        final int aborted = aborted(results, 0, c, 1);
+        return new ScenarioRun(c, aborted, observations, anomalies, aborted == c);
+    }
+
+    // Writers and readers alternating, each pair on the fixture of its own key; anomaly if a reader saw two values.
+    // Interleaved, each reader reads before and after the writer of its round commits.
+    private static ScenarioRun alternating(ScenarioContext ctx, int c,
+                                           Function<Map<String, Object>, Map<String, Object>> w,
+                                           Function<Map<String, Object>, Map<String, Object>> r,
+                                           IntFunction<Map<String, Object>> writeParameters,
+                                           IntFunction<Map<String, Object>> readParameters)
+            throws InterruptedException {
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (int i = 0; i < c; i++) {
+            final int key = ctx.key();
+            clients.add(client(2 * i, w, writeParameters.apply(key)));
+            clients.add(client(2 * i + 1, r, readParameters.apply(key)));
+        }
+        final List<Map<String, Object>> results = ctx.run(clients, 2, i -> i / 2, i -> i % 2 == 1);
+        int observations = 0;
+        int anomalies = 0;
+        for (int i = 1; i < 2 * c; i += 2) {
+            if (results.get(i) != null && results.get(i).containsKey("firstRead")) {
+                observations++;
+                if (!results.get(i).get("firstRead").equals(results.get(i).get("secondRead"))) {
+                    anomalies++;
+                }
+            }
+        }
+        final int abortedW = aborted(results, 0, 2 * c, 2);
+        final int abortedR = aborted(results, 1, 2 * c, 2);
+        return new ScenarioRun(2 * c, abortedW + abortedR, observations, anomalies, abortedW == c || abortedR == c);
+    }
+
+    public static ScenarioRun imp(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("imp", d::impInit);
+        return alternating(ctx, 20 * ctx.load(), d::impW, d::impR,
+            key -> ImmutableMap.of("accountId", ctx.id(key, 1)),
+            key -> ImmutableMap.of("accountId", ctx.id(key, 1), "sleepTime", ctx.sleepMillis()));
+    }
+
+    public static ScenarioRun pmp(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("pmp", d::pmpInit);
+        return alternating(ctx, 20 * ctx.load(), d::pmpW, d::pmpR,
+            key -> ImmutableMap.of("account1Id", ctx.id(key, 1), "account2Id", ctx.id(key, 2)),
+            key -> ImmutableMap.of("account1Id", ctx.id(key, 1), "account2Id", ctx.id(key, 2),
+                    "sleepTime", ctx.sleepMillis()));
+    }
+
+    public static ScenarioRun fr(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("fr", d::frInit);
+        return alternating(ctx, 100 * ctx.load(), d::frW, d::frR,
+            key -> ImmutableMap.of("accountId", ctx.id(key, 1)),
+            key -> ImmutableMap.of("accountId", ctx.id(key, 1), "sleepTime", ctx.sleepMillis()));
+    }
+
+    // Interleaved, every round is a writer and the readers that read before and after it, up to 7 readers as far as
+    // the pool runs the whole round at once. Otherwise the load's writers run alongside all readers.
+    @SuppressWarnings("unchecked")
+    public static ScenarioRun otv(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.initOnce("otv", d::otvInit);
+        final int rc = 50 * ctx.load();
+        final int readersPerRound = Math.min(7, ctx.threads() - 1);
+        final boolean interleaved = readersPerRound > 0 && ctx.interleaves(readersPerRound + 1);
+        final Random random = new Random();
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        final List<Boolean> writers = new ArrayList<>();
+        if (!interleaved) {
+            for (int i = 0; i < ctx.load(); i++) {
+                clients.add(client(i, d::otvW, ImmutableMap.of("cycleSize", 4)));
+                writers.add(true);
+            }
+        }
+        for (int i = 0; i < rc; i++) {
+            if (interleaved && i % readersPerRound == 0) {
+                clients.add(client(i, d::otvW, ImmutableMap.of("cycleSize", 4)));
+                writers.add(true);
+            }
+            clients.add(client(i, d::otvR, ImmutableMap.of("accountId", ctx.id(random.nextInt(4) + 1),
+                    "sleepTime", ctx.sleepMillis())));
+            writers.add(false);
+        }
+        final List<Map<String, Object>> results = ctx.run(clients, readersPerRound + 1,
+            i -> i / (readersPerRound + 1), i -> i % (readersPerRound + 1) != 0);
+        int observations = 0;
+        int anomalies = 0;
+        int abortedW = 0;
+        int abortedR = 0;
+        for (int i = 0; i < clients.size(); i++) {
+            final Map<String, Object> result = results.get(i);
+            if (result == null) {
+                if (writers.get(i)) {
+                    abortedW++;
+                } else {
+                    abortedR++;
+                }
+            } else if (!writers.get(i) && result.containsKey("firstRead")) {
+                observations++;
+                final List<Long> firstRead = (List<Long>) result.get("firstRead");
+                final List<Long> secondRead = (List<Long>) result.get("secondRead");
+                if (Collections.max(firstRead) > Collections.min(secondRead)) {
+                    anomalies++;
+                }
+            }
+        }
+        final int wc = clients.size() - rc;
+        // each writer runs 100 transactions
+        return new ScenarioRun(100 * wc + rc, abortedW + abortedR, observations, anomalies,
+                abortedW == wc || abortedR == rc);
+    }
+
+    public static ScenarioRun lu(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("lu", d::luInit);
+        final int n = 200 * ctx.load();
+        final int[] keys = new int[n];
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        for (int i = 0; i < n; i++) {
+            keys[i] = ctx.key();
+            clients.add(client(i, d::luW, ImmutableMap.of("account1Id", ctx.id(keys[i], 1),
+                    "account2Id", ctx.id(keys[i], i + 2))));
+        }
+        final List<Map<String, Object>> results = ctx.run(clients);
+        // the committed transfers of every key
+        final Map<Integer, Long> committed = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            committed.merge(keys[i], results.get(i) == null ? 0L : 1L, Long::sum);
+        }
+        int anomalies = 0;
+        for (Map.Entry<Integer, Long> entry : committed.entrySet()) {
+            final Map<String, Object> result = d.luR(ImmutableMap.of("accountId", ctx.id(entry.getKey(), 1)));
+            if ((long) result.get("numTransferred") != entry.getValue()
+                    || (long) result.get("numTransferEdges") != entry.getValue()) {
+                anomalies++;
+            }
+        }
+        final int aborted = aborted(results, 0, n, 1);
+        return new ScenarioRun(n, aborted, committed.size(), anomalies, aborted == n);
+    }
+
+    // Interleaved, the two writers of a round share a pair and both check the constraint before either withdraws.
+    public static ScenarioRun ws(ScenarioContext ctx) throws InterruptedException {
+        final TestDriver<?, ?, ?> d = ctx.driver();
+        ctx.init("ws", d::wsInit);
+        // the fixture of every key has 10 pairs, the pair within the key is uniform
+        final int numAccountPairs = 10;
+        final int wc = 50 * ctx.load();
+        final boolean interleaved = ctx.interleaves(2);
+        final Random random = new Random();
+        final List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = clients();
+        long account1Id = 0;
+        for (int i = 0; i < wc; i++) {
+            if (!interleaved || i % 2 == 0) {
+                account1Id = ctx.id(ctx.key(), random.nextInt(numAccountPairs) * 2 + 1);
+            }
+            clients.add(client(i, d::wsW, ImmutableMap.of("account1Id", account1Id, "account2Id", account1Id + 1,
+                    "sleepTime", ctx.sleepMillis())));
+        }
+        final int aborted = aborted(ctx.run(clients, 2, i -> i / 2, i -> true), 0, wc, 1);
+        // every pair is an observation, every violating pair an anomaly
+        return new ScenarioRun(wc, aborted, numAccountPairs * ctx.keys(), d.wsViolations(ImmutableMap.of()).size(),
+                aborted == wc);
+    }
+}
@@ -0,0 +1,79 @@
+package ldbc.finbench.acid.transactions;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Control of the interleaving of one round of transactions. The paused transactions of a round run through
+// run(...); when one reaches the control point of its scenario (TestDriver.interleave) it arrives and waits until
+// the harness releases the round, after the conflicting transactions executed. See Interleaver.
+public class Interleaving {
+
+    // bounds every wait, so a round that never releases does not hang the test
+    private static final long SAFETY_TIMEOUT_MILLIS = 60_000;
+
+    private static final ThreadLocal<Participant> CURRENT = new ThreadLocal<>();
+
+    private static final class Participant {
+        final Interleaving interleaving;
+        boolean arrived;
+
+        Participant(Interleaving interleaving) {
+            this.interleaving = interleaving;
+        }
+    }
+
+    // counts the paused transactions that arrived at the control point or finished without reaching it
+    private final CountDownLatch arrived;
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    public Interleaving(int paused) {
+        this.arrived = new CountDownLatch(paused);
+    }
+
+    // Runs a paused transaction of the round on the current thread.
+    public <R> R run(Callable<R> transaction) throws Exception {
+        final Participant participant = new Participant(this);
+        CURRENT.set(participant);
+        try {
+            return transaction.call();
+        } finally {
+            CURRENT.remove();
+            if (!participant.arrived) {
+                arrived.countDown();
+            }
+        }
+    }
+
+    // Called at the control point of a scenario. Waits until the round is released and returns true if the current
+    // transaction runs interleaved; returns false otherwise. Only the first control point of a transaction waits.
+    public static boolean arrive() {
+        final Participant participant = CURRENT.get();
+        if (participant == null) {
+            return false;
+        }
+        if (!participant.arrived) {
+            participant.arrived = true;
+            participant.interleaving.arrived.countDown();
+            try {
+                participant.interleaving.released.await(SAFETY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    public static boolean isInterleaved() {
+        return CURRENT.get() != null;
+    }
+
+    // Waits until every paused transaction arrived at its control point or finished.
+    public boolean awaitArrival() throws InterruptedException {
+        return arrived.await(SAFETY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        released.countDown();
+    }
+}
@@ -0,0 +1,87 @@
+package ldbc.finbench.acid;
+
+import java.util.EnumSet;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.prober.Anomaly;
+import ldbc.finbench.acid.prober.BackgroundWorkload;
+import ldbc.finbench.acid.prober.IsolationProber;
+import ldbc.finbench.acid.prober.KeyDistribution;
+import ldbc.finbench.acid.prober.ProbeReport;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BackgroundWorkloadTest {
+
+    private static long totalBalance(ReferenceDriver driver) {
+        final long[] total = new long[1];
+        final long maxId = driver.getIdBase() + TestDriver.NAMESPACE_SIZE - 1;
+        driver.getStore().scan(driver.getIdBase(), maxId, (id, a) -> total[0] += a.getBalance());
+        return total[0];
+    }
+
+    @Test
+    public void runsOnSchedule() throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SERIALIZABLE_2PL)) {
+            final long beforeStart = System.nanoTime();
+            final BackgroundWorkload workload = new BackgroundWorkload(driver).setThroughput(200).setClients(4)
+                    .setAccounts(KeyDistribution.zipfian(100, 0.99)).setLoans(10).start();
+            final long started = System.nanoTime();
+            final long initialBalance = totalBalance(driver);
+            Thread.sleep(1000);
+            final long stopping = System.nanoTime();
+            workload.stop();
+            final long stopped = System.nanoTime();
+            // The clients never start a transaction before its scheduled time, and each of them starts at most one
+            // more. They may fall behind the schedule on a loaded host, so the lower bound is generous.
+            final long transactions = workload.getCommitted() + workload.getAborted();
+            Assert.assertTrue(workload.toString(), transactions <= (stopped - beforeStart) * 200 / 1e9 + 4);
+            Assert.assertTrue(workload.toString(), transactions >= (stopping - started) * 200 / 1e9 / 2);
+            Assert.assertTrue(workload.toString(), workload.latencyPercentile(0.99) > 0);
+            // every transaction moves money between two balances of the workload
+            Assert.assertEquals(initialBalance, totalBalance(driver));
+            workload.close();
+            Assert.assertEquals(0, totalBalance(driver));
+        }
+    }
+
+    @Test
+    public void refusesDriversWithoutNamespaces() throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SERIALIZABLE_2PL);
+             ReferenceDriver client = new ReferenceDriver(driver.getStore()) {
+                 @Override
+                 public boolean supportsNamespaces() {
+                     return false;
+                 }
+             }) {
+            driver.setNamespace(1);
+            driver.g0Init();
+            try {
+                new BackgroundWorkload(client).start();
+                Assert.fail("the workload would have nuked the database");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            // the accounts of the fixture are still there
+            final long[] accounts = new long[1];
+            driver.getStore().scan(driver.getIdBase(), driver.getIdBase() + TestDriver.NAMESPACE_SIZE - 1,
+                (id, a) -> accounts[0]++);
+            Assert.assertEquals(2, accounts[0]);
+        }
+    }
+
+    @Test
+    public void probesUnderBackgroundLoad() throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION);
+             BackgroundWorkload workload = new BackgroundWorkload(new ReferenceDriver(driver.getStore()))
+                     .setThroughput(500).setClients(8).start()) {
+            final ProbeReport report = new IsolationProber(driver).setMaxLoad(2).setSleepMillis(10)
+                    .setAnomalies(EnumSet.of(Anomaly.LU, Anomaly.WS)).probe();
+            workload.stop();
+            Assert.assertFalse(report.details(), report.isDetected(Anomaly.LU));
+            Assert.assertTrue(report.details(), report.isDetected(Anomaly.WS));
+            Assert.assertTrue(workload.toString(), workload.getCommitted() > 0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ldbc.finbench.acid;
+
+import java.util.List;
+import ldbc.finbench.acid.prober.Anomaly;
+import ldbc.finbench.acid.prober.ConcurrencySweep;
+import ldbc.finbench.acid.prober.KeyDistribution;
+import ldbc.finbench.acid.prober.ProbeRun;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrencySweepTest {
+
+    private static List<ProbeRun> sweep(IsolationLevel isolationLevel, Anomaly anomaly) throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(isolationLevel)) {
+            return new ConcurrencySweep(driver, anomaly).setMaxClients(16).setSleepMillis(10).sweep();
+        }
+    }
+
+    @Test
+    public void sweepClients() throws Exception {
+        final List<ProbeRun> runs = sweep(IsolationLevel.SNAPSHOT_ISOLATION, Anomaly.FR);
+        Assert.assertEquals(5, runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            final ProbeRun run = runs.get(i);
+            Assert.assertEquals(1 << i, run.getClients());
+            Assert.assertTrue(run.getThroughput() > 0);
+            Assert.assertTrue(run.latencyPercentile(0.99) >= run.latencyPercentile(0.5));
+            Assert.assertEquals(0, run.getAnomalyRate(), 0);
+        }
+    }
+
+    @Test
+    public void sweepDetectsAnomalies() throws Exception {
+        final List<ProbeRun> runs = sweep(IsolationLevel.READ_COMMITTED, Anomaly.FR);
+        Assert.assertTrue(ConcurrencySweep.table(runs), runs.stream().anyMatch(run -> run.getAnomalyRate() > 0));
+    }
+
+    @Test
+    public void sweepSkewedKeys() throws Exception {
+        for (Anomaly anomaly : new Anomaly[] {Anomaly.G0, Anomaly.LU, Anomaly.IMP, Anomaly.WS}) {
+            try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SERIALIZABLE_SSI)) {
+                final List<ProbeRun> runs = new ConcurrencySweep(driver, anomaly).setMinClients(8).setMaxClients(16)
+                        .setSleepMillis(10).setKeys(KeyDistribution.zipfian(50, 0.99)).sweep();
+                for (ProbeRun run : runs) {
+                    Assert.assertEquals(anomaly.toString(), 0, run.getAnomalies());
+                    Assert.assertTrue(anomaly.toString(), run.getObservations() > 1);
+                }
+            }
+        }
+    }
+}
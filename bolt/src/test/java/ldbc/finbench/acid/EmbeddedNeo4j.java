@@ -0,0 +1,51 @@
+package ldbc.finbench.acid;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+
+// In-process Neo4j with a Bolt connector on an ephemeral loopback port, so that the Bolt scenarios can run without
+// a server. The database lives in a temporary directory that is deleted on close. Neo4j is only on the test
+// classpath with -Pembedded, hence the reflection.
+public class EmbeddedNeo4j implements AutoCloseable {
+
+    private final AutoCloseable neo4j;
+    private final URI boltUri;
+
+    private EmbeddedNeo4j(AutoCloseable neo4j, URI boltUri) {
+        this.neo4j = neo4j;
+        this.boltUri = boltUri;
+    }
+
+    public static EmbeddedNeo4j start() {
+        try {
+            final Class<?> builders = Class.forName("org.neo4j.harness.Neo4jBuilders");
+            Object builder = builders.getMethod("newInProcessBuilder").invoke(null);
+            // only Bolt, no HTTP server
+            builder = builder.getClass().getMethod("withDisabledServer").invoke(builder);
+            final Method build = builder.getClass().getMethod("build");
+            build.setAccessible(true);
+            final AutoCloseable neo4j = (AutoCloseable) build.invoke(builder);
+            final Method boltUri = neo4j.getClass().getMethod("boltURI");
+            boltUri.setAccessible(true);
+            return new EmbeddedNeo4j(neo4j, (URI) boltUri.invoke(neo4j));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("the embedded Neo4j needs the harness on the classpath, run with "
+                    + "-Pembedded", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot start the embedded Neo4j", e);
+        }
+    }
+
+    public String getHost() {
+        return boltUri.getHost();
+    }
+
+    public int getPort() {
+        return boltUri.getPort();
+    }
+
+    @Override
+    public void close() throws Exception {
+        neo4j.close();
+    }
+}
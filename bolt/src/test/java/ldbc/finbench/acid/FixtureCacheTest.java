@@ -0,0 +1,169 @@
+package ldbc.finbench.acid;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import ldbc.finbench.acid.fixture.FixtureCache;
+import ldbc.finbench.acid.fixture.FixtureReader;
+import ldbc.finbench.acid.fixture.FixtureWriter;
+import ldbc.finbench.acid.generator.GraphSink;
+import ldbc.finbench.acid.prober.Anomaly;
+import ldbc.finbench.acid.prober.IsolationProber;
+import ldbc.finbench.acid.prober.KeyDistribution;
+import ldbc.finbench.acid.prober.ProbeReport;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FixtureCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Keeps the batches it is handed with their labels.
+    private static class ListSink implements GraphSink {
+        final List<List<Object>> batches = new ArrayList<>();
+
+        @Override
+        public void nodes(String label, List<Map<String, Object>> nodes) {
+            batches.add(ImmutableList.of(label, nodes));
+        }
+
+        @Override
+        public void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+            batches.add(ImmutableList.of(fromLabel + "-" + type + "->" + toLabel, edges));
+        }
+    }
+
+    private static Map<String, Object> edge(long fromId, long toId, Map<String, Object> properties) {
+        final Map<String, Object> edge = new HashMap<>();
+        edge.put("fromId", fromId);
+        edge.put("toId", toId);
+        edge.put("properties", properties);
+        return edge;
+    }
+
+    // the nodes and edges of the namespace with their labels, in any order
+    private static Set<List<Object>> dump(ReferenceDriver driver) {
+        final ListSink sink = new ListSink();
+        driver.dumpNamespace(sink);
+        final Set<List<Object>> elements = new HashSet<>();
+        for (List<Object> batch : sink.batches) {
+            for (Object element : (List<?>) batch.get(1)) {
+                elements.add(ImmutableList.of(batch.get(0), element));
+            }
+        }
+        return elements;
+    }
+
+    @Test
+    public void writesAndReadsFixtureFiles() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("graph.fixture");
+        final Map<String, Object> node = new HashMap<>();
+        node.put("id", 1L);
+        node.put("name", "Aliceé");
+        node.put("isBlocked", true);
+        node.put("rate", 0.5);
+        node.put("transHistory", ImmutableList.of(100L, 200L));
+        node.put("none", null);
+        try (FixtureWriter writer = new FixtureWriter(file)) {
+            writer.nodes("Account", Arrays.asList(node, ImmutableMap.of("id", 2L, "balance", 7)));
+            writer.edges("Account", "transfer", "Account", ImmutableList.of(edge(1, 2, ImmutableMap.of("amount", 3L))));
+        }
+
+        final ListSink sink = new ListSink();
+        FixtureReader.replay(file, sink, id -> 1000 + id);
+        final Map<String, Object> restored = new HashMap<>(node);
+        restored.put("id", 1001L);
+        Assert.assertEquals(ImmutableList.of(
+                ImmutableList.of("Account", Arrays.asList(restored, ImmutableMap.of("id", 1002L, "balance", 7L))),
+                ImmutableList.of("Account-transfer->Account",
+                        ImmutableList.of(edge(1001, 1002, ImmutableMap.of("amount", 3L))))),
+                sink.batches);
+    }
+
+    @Test
+    public void restoresSnapshotsIntoOtherNamespaces() throws Exception {
+        final FixtureCache fixtures = new FixtureCache(folder.getRoot().toPath());
+        final AtomicInteger inits = new AtomicInteger();
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION)) {
+            driver.setNamespace(1);
+            fixtures.restore(driver, "otv", () -> {
+                inits.incrementAndGet();
+                driver.otvInit();
+            });
+            Assert.assertTrue(Files.exists(fixtures.file(driver, "otv")));
+            final Set<List<Object>> built = dump(driver);
+
+            driver.setNamespace(2);
+            fixtures.restore(driver, "otv", () -> {
+                inits.incrementAndGet();
+                driver.otvInit();
+            });
+            Assert.assertEquals(1, inits.get());
+            Assert.assertEquals(1, fixtures.getBuilt());
+            Assert.assertEquals(1, fixtures.getRestored());
+            // the cycle of four accounts with its transfers
+            Assert.assertEquals(8, built.size());
+            Assert.assertEquals(built, dump(driver));
+
+            // a new cache over the same directory restores from the file of the earlier run
+            final FixtureCache later = new FixtureCache(folder.getRoot().toPath());
+            driver.setNamespace(3);
+            later.restore(driver, "otv", () -> Assert.fail("the fixture is restored from its snapshot"));
+            Assert.assertEquals(built, dump(driver));
+        }
+    }
+
+    @Test
+    public void runsInitsOnDriversWithoutSnapshots() throws Exception {
+        final FixtureCache fixtures = new FixtureCache(folder.getRoot().toPath());
+        final AtomicInteger inits = new AtomicInteger();
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION) {
+                @Override
+                public boolean supportsSnapshots() {
+                    return false;
+                }
+            }) {
+            for (int namespace = 1; namespace <= 2; namespace++) {
+                driver.setNamespace(namespace);
+                fixtures.restore(driver, "otv", () -> {
+                    inits.incrementAndGet();
+                    driver.otvInit();
+                });
+            }
+            Assert.assertEquals(2, inits.get());
+            Assert.assertEquals(2, fixtures.getBuilt());
+            Assert.assertEquals(0, fixtures.getRestored());
+            Assert.assertFalse(Files.exists(fixtures.file(driver, "otv")));
+        }
+    }
+
+    @Test
+    public void probesWithSnapshots() throws Exception {
+        final FixtureCache fixtures = new FixtureCache(folder.getRoot().toPath());
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION)) {
+            final ProbeReport report = new IsolationProber(driver).setMaxLoad(4).setSleepMillis(10)
+                    .setKeys(KeyDistribution.uniform(16)).setFixtures(fixtures)
+                    .setAnomalies(EnumSet.of(Anomaly.G1C, Anomaly.LU)).probe();
+            Assert.assertFalse(report.details(), report.isDetected(Anomaly.G1C));
+            Assert.assertFalse(report.details(), report.isDetected(Anomaly.LU));
+            // each anomaly ran at the loads 1, 2 and 4 but built its 16 copies of the fixture once
+            Assert.assertEquals(fixtures.toString(), 2, fixtures.getBuilt());
+            Assert.assertEquals(fixtures.toString(), 4, fixtures.getRestored());
+        }
+    }
+}
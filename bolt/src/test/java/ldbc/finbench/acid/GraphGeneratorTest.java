@@ -0,0 +1,153 @@
+package ldbc.finbench.acid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.generator.GraphGenerator;
+import ldbc.finbench.acid.generator.GraphSink;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GraphGeneratorTest {
+
+    // Counts what it is handed and checks the order of the batches, it keeps the degrees but not the graph.
+    private static class CountingSink implements GraphSink {
+        final Map<String, Long> counts = new HashMap<>();
+        final long[] outDegree;
+        final long[] inDegree;
+        long maxBatch;
+        long lastTimestamp = Long.MIN_VALUE;
+        boolean edgesStarted;
+        long hash = 17;
+
+        CountingSink(int accounts) {
+            outDegree = new long[accounts];
+            inDegree = new long[accounts];
+        }
+
+        private void count(String key, int size) {
+            counts.merge(key, (long) size, Long::sum);
+            maxBatch = Math.max(maxBatch, size);
+        }
+
+        @Override
+        public void nodes(String label, List<Map<String, Object>> nodes) {
+            Assert.assertFalse("nodes after edges", edgesStarted);
+            count(label, nodes.size());
+            for (Map<String, Object> node : nodes) {
+                hash = 31 * hash + node.hashCode();
+            }
+        }
+
+        @Override
+        public void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+            edgesStarted = true;
+            count(type, edges.size());
+            for (Map<String, Object> edge : edges) {
+                hash = 31 * hash + edge.hashCode();
+                if (!"transfer".equals(type)) {
+                    continue;
+                }
+                final int fromId = ((Number) edge.get("fromId")).intValue();
+                final int toId = ((Number) edge.get("toId")).intValue();
+                Assert.assertNotEquals(fromId, toId);
+                outDegree[fromId]++;
+                inDegree[toId]++;
+                final long timestamp = (Long) ((Map<?, ?>) edge.get("properties")).get("timestamp");
+                Assert.assertTrue("transfers out of time order", timestamp >= lastTimestamp);
+                lastTimestamp = timestamp;
+            }
+        }
+    }
+
+    private static long max(long[] values) {
+        long max = 0;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    @Test
+    public void streamsAPowerLawGraph() {
+        final List<Long> progress = new ArrayList<>();
+        final GraphGenerator generator = new GraphGenerator(10_000).setBatchSize(1000)
+                .setProgress((elements, total) -> progress.add(total - elements));
+        final CountingSink sink = new CountingSink(10_000);
+        generator.generate(sink, LongUnaryOperator.identity());
+
+        Assert.assertEquals(10_000L, (long) sink.counts.get("Account"));
+        Assert.assertEquals(5_000L, (long) sink.counts.get("Person"));
+        Assert.assertEquals(2_500L, (long) sink.counts.get("Company"));
+        Assert.assertEquals(2_500L, (long) sink.counts.get("Loan"));
+        Assert.assertEquals(10_000L, (long) sink.counts.get("own"));
+        Assert.assertEquals(2_500L, (long) sink.counts.get("apply"));
+        Assert.assertEquals(2_500L, (long) sink.counts.get("deposit"));
+        Assert.assertEquals(100_000L, (long) sink.counts.get("transfer"));
+        Assert.assertEquals(generator.getNodes() + generator.getEdges(),
+                sink.counts.values().stream().mapToLong(Long::longValue).sum());
+        Assert.assertEquals(1000, sink.maxBatch);
+        // one report per batch, the last one for the whole graph
+        Assert.assertEquals(0L, (long) progress.get(progress.size() - 1));
+
+        // 10 transfers per account on average, the hubs of the out-degree have far more
+        Assert.assertTrue("max out-degree " + max(sink.outDegree), max(sink.outDegree) > 100);
+        Assert.assertTrue("max out-degree " + max(sink.outDegree) + ", in-degree " + max(sink.inDegree),
+                max(sink.outDegree) > max(sink.inDegree));
+    }
+
+    @Test
+    public void sameSeedSameGraph() {
+        final CountingSink first = new CountingSink(1000);
+        new GraphGenerator(1000).setSeed(7).generate(first, LongUnaryOperator.identity());
+        final CountingSink second = new CountingSink(1000);
+        new GraphGenerator(1000).setSeed(7).generate(second, LongUnaryOperator.identity());
+        final CountingSink other = new CountingSink(1000);
+        new GraphGenerator(1000).setSeed(8).generate(other, LongUnaryOperator.identity());
+
+        Assert.assertEquals(first.hash, second.hash);
+        Assert.assertNotEquals(first.hash, other.hash);
+    }
+
+    @Test
+    public void rejectsGraphsWithoutOwners() {
+        try {
+            new GraphGenerator(100).setPersons(0);
+            Assert.fail("the accounts owned by persons need a person");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new GraphGenerator(100).setCompanies(0);
+            Assert.fail("the accounts owned by companies need a company");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void loadsThroughTheDriver() throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION)) {
+            driver.setNamespace(3);
+            final GraphGenerator generator = new GraphGenerator(100).setTransfers(1000).setBatchSize(64);
+            generator.generate(driver);
+
+            final Map<String, Object> parameters = new HashMap<>();
+            parameters.put("minId", driver.id(0));
+            parameters.put("maxId", driver.id(TestDriver.NAMESPACE_SIZE - 1));
+            final Map<String, Object> result = driver.atomicityCheck(parameters);
+            // the reference engine keeps the nodes of every label as records, the persons and companies have names
+            Assert.assertEquals(generator.getNodes(), ((Number) result.get("numAccounts")).longValue());
+            Assert.assertEquals(75L, ((Number) result.get("numNames")).longValue());
+            final long[] transfers = new long[1];
+            driver.getStore().scan(driver.id(0), driver.id(TestDriver.NAMESPACE_SIZE - 1),
+                (id, a) -> transfers[0] += a.getTransferCount());
+            Assert.assertEquals(1000L, transfers[0]);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ldbc.finbench.acid;
+
+import java.util.Arrays;
+import java.util.Collection;
+import ldbc.finbench.acid.prober.Anomaly;
+import ldbc.finbench.acid.prober.IsolationProber;
+import ldbc.finbench.acid.prober.IsolationProber.Level;
+import ldbc.finbench.acid.prober.ProbeReport;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+// Probes the reference engine under each isolation level and checks that the prober infers that level.
+@RunWith(Parameterized.class)
+public class IsolationProberTest {
+
+    private final IsolationLevel isolationLevel;
+    private final Level expected;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> isolationLevels() {
+        return Arrays.asList(new Object[][] {
+                {IsolationLevel.READ_COMMITTED, Level.READ_COMMITTED},
+                {IsolationLevel.SNAPSHOT_ISOLATION, Level.SNAPSHOT_ISOLATION},
+                {IsolationLevel.SERIALIZABLE_2PL, Level.SERIALIZABLE},
+                {IsolationLevel.SERIALIZABLE_SSI, Level.SERIALIZABLE}});
+    }
+
+    public IsolationProberTest(IsolationLevel isolationLevel, Level expected) {
+        this.isolationLevel = isolationLevel;
+        this.expected = expected;
+    }
+
+    @Test
+    public void inferIsolationLevel() throws Exception {
+        try (ReferenceDriver driver = new ReferenceDriver(isolationLevel)) {
+            final ProbeReport report = new IsolationProber(driver).setSleepMillis(50).probe();
+            Assert.assertEquals(report.toString(), expected, report.inferredLevel());
+            Assert.assertFalse(report.isDetected(Anomaly.C));
+            Assert.assertFalse(report.isDetected(Anomaly.RB));
+        }
+    }
+}
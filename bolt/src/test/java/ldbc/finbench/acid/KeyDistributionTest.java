@@ -0,0 +1,63 @@
+package ldbc.finbench.acid;
+
+import java.util.Random;
+import ldbc.finbench.acid.prober.KeyDistribution;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyDistributionTest {
+
+    private static int[] histogram(KeyDistribution keys, int samples) {
+        final Random random = new Random(42);
+        final int[] histogram = new int[keys.size()];
+        for (int i = 0; i < samples; i++) {
+            histogram[keys.next(random)]++;
+        }
+        return histogram;
+    }
+
+    @Test
+    public void uniform() {
+        for (int count : histogram(KeyDistribution.uniform(10), 100_000)) {
+            Assert.assertEquals(10_000, count, 500);
+        }
+    }
+
+    @Test
+    public void zipfian() {
+        final int[] histogram = histogram(KeyDistribution.zipfian(1000, 0.99), 100_000);
+        // the share of key 0 is 1 / H(1000, 0.99), about 13%
+        Assert.assertEquals(13_000, histogram[0], 1000);
+        Assert.assertTrue(histogram[0] > histogram[1] && histogram[1] > histogram[10] && histogram[10] > 0);
+        // theta 0 is uniform
+        for (int count : histogram(KeyDistribution.zipfian(10, 0), 100_000)) {
+            Assert.assertEquals(10_000, count, 500);
+        }
+    }
+
+    @Test
+    public void hotspot() {
+        final int[] histogram = histogram(KeyDistribution.hotspot(100, 0.01, 0.9), 100_000);
+        Assert.assertEquals(90_000, histogram[0], 1000);
+        for (int key = 1; key < 100; key++) {
+            Assert.assertTrue(histogram[key] > 0);
+        }
+    }
+
+    @Test
+    public void parse() {
+        Assert.assertEquals("uniform:5", KeyDistribution.parse("uniform:5").toString());
+        Assert.assertEquals("zipfian:100:1.2", KeyDistribution.parse("zipfian:100:1.2").toString());
+        Assert.assertEquals("hotspot:100:0.1:0.8", KeyDistribution.parse("hotspot:100:0.1:0.8").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zipfianInvalidSize() {
+        KeyDistribution.zipfian(-1, 0.99);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalid() {
+        KeyDistribution.parse("zipfian:100");
+    }
+}
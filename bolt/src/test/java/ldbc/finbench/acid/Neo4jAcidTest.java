@@ -1,15 +1,73 @@
 package ldbc.finbench.acid;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import ldbc.finbench.acid.bolt.BoltDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.rules.TestName;
 
 public class Neo4jAcidTest extends AcidTest<BoltDriver> {
 
+    private static final Logger logger = LogManager.getLogger(Neo4jAcidTest.class);
+
+    // run with -Dacid.profile=true to PROFILE every distinct query after each test
+    private static final boolean PROFILE = Boolean.getBoolean("acid.profile");
+
+    // host:port of the server, or "embedded" to start an in-process Neo4j (needs -Pembedded)
+    private static final String NEO4J = System.getProperty("acid.neo4j", "neo4j:7687");
+
+    private static EmbeddedNeo4j embedded;
+
+    @Rule
+    public TestName testName = new TestName();
+
     public Neo4jAcidTest() {
-        super(new BoltDriver("neo4j", 7687));
+        super(createDriver());
+        testDriver.setProfiling(PROFILE);
+    }
+
+    private static BoltDriver createDriver() {
+        if (embedded != null) {
+            return new BoltDriver(embedded.getHost(), embedded.getPort());
+        }
+        final int colon = NEO4J.lastIndexOf(':');
+        return colon < 0 ? new BoltDriver(NEO4J, 7687)
+                : new BoltDriver(NEO4J.substring(0, colon), Integer.parseInt(NEO4J.substring(colon + 1)));
     }
 
     @BeforeClass
     public static void setUp() {
+        if ("embedded".equals(NEO4J)) {
+            embedded = EmbeddedNeo4j.start();
+            logger.info("Started embedded Neo4j on port " + embedded.getPort());
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if (embedded != null) {
+            embedded.close();
+            embedded = null;
+        }
+    }
+
+    @After
+    public void reportQuerySummaries() throws IOException {
+        logger.info("Query summaries:\n" + testDriver.getQuerySummaries().report());
+        if (PROFILE) {
+            final String report = testDriver.profileQueries().report();
+            final Path dir = Paths.get("target", "query-profiles");
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(testName.getMethodName() + ".txt"), report.getBytes(StandardCharsets.UTF_8));
+            logger.info("Query profiles:\n" + report);
+        }
     }
 }
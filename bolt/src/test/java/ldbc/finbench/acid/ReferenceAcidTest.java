@@ -0,0 +1,53 @@
+package ldbc.finbench.acid;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TestName;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+// Runs every scenario on the in-process reference engine under each isolation level. The tests of the anomalies that
+// a level allows are skipped here, ReferenceAnomalyTest checks that they detect them.
+@RunWith(Parameterized.class)
+public class ReferenceAcidTest extends AcidTest<ReferenceDriver> {
+
+    // the tests that fail under an isolation level because it allows the anomaly
+    static final Map<IsolationLevel, Set<String>> ALLOWED_ANOMALIES = ImmutableMap.of(
+            IsolationLevel.READ_COMMITTED, ImmutableSet.of("impTest", "pmpTest", "frTest", "wsTest"),
+            IsolationLevel.SNAPSHOT_ISOLATION, ImmutableSet.of("wsTest"),
+            IsolationLevel.SERIALIZABLE_2PL, ImmutableSet.of(),
+            IsolationLevel.SERIALIZABLE_SSI, ImmutableSet.of());
+
+    @Rule
+    public TestName testName = new TestName();
+
+    private final IsolationLevel isolationLevel;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> isolationLevels() {
+        return Arrays.asList(new Object[][] {
+                {IsolationLevel.READ_COMMITTED}, {IsolationLevel.SNAPSHOT_ISOLATION},
+                {IsolationLevel.SERIALIZABLE_2PL}, {IsolationLevel.SERIALIZABLE_SSI}});
+    }
+
+    public ReferenceAcidTest(IsolationLevel isolationLevel) {
+        super(new ReferenceDriver(isolationLevel));
+        this.isolationLevel = isolationLevel;
+    }
+
+    @Before
+    public void skipAllowedAnomalies() {
+        final String test = testName.getMethodName().replaceAll("\\[.*]", "");
+        Assume.assumeFalse(isolationLevel + " allows the anomaly of " + test,
+                ALLOWED_ANOMALIES.get(isolationLevel).contains(test));
+    }
+}
@@ -0,0 +1,63 @@
+package ldbc.finbench.acid;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+// Checks that the tests detect the anomalies that the isolation level of the reference engine allows: the test of
+// each allowed anomaly has to fail. Whether an anomaly occurs depends on the interleaving, so a test is run up to
+// ATTEMPTS times.
+@RunWith(Parameterized.class)
+public class ReferenceAnomalyTest {
+
+    private static final int ATTEMPTS = 5;
+
+    private final IsolationLevel isolationLevel;
+    private final String test;
+
+    @Parameterized.Parameters(name = "{0} {1}")
+    public static Collection<Object[]> allowedAnomalies() {
+        final List<Object[]> parameters = new ArrayList<>();
+        for (Map.Entry<IsolationLevel, Set<String>> e : ReferenceAcidTest.ALLOWED_ANOMALIES.entrySet()) {
+            for (String test : e.getValue()) {
+                parameters.add(new Object[] {e.getKey(), test});
+            }
+        }
+        return parameters;
+    }
+
+    public ReferenceAnomalyTest(IsolationLevel isolationLevel, String test) {
+        this.isolationLevel = isolationLevel;
+        this.test = test;
+    }
+
+    @Test
+    public void detectsAnomaly() throws Exception {
+        final Method method = AcidTest.class.getMethod(test);
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            // called directly, so the test is not skipped
+            final ReferenceAcidTest acidTest = new ReferenceAcidTest(isolationLevel);
+            acidTest.initialize();
+            try {
+                method.invoke(acidTest);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof AssertionError) {
+                    return;
+                }
+                throw e;
+            } finally {
+                acidTest.cleanup();
+            }
+        }
+        Assert.fail(test + " did not detect its anomaly under " + isolationLevel + " in " + ATTEMPTS + " runs");
+    }
+}
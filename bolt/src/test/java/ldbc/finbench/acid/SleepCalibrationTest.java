@@ -0,0 +1,39 @@
+package ldbc.finbench.acid;
+
+import ldbc.finbench.acid.driver.SleepCalibration;
+import ldbc.finbench.acid.reference.IsolationLevel;
+import ldbc.finbench.acid.reference.ReferenceDriver;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SleepCalibrationTest {
+
+    @Test
+    public void fastDriver() {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION)) {
+            final SleepCalibration calibration = SleepCalibration.calibrate(driver);
+            Assert.assertEquals(SleepCalibration.DEFAULT_SAMPLES, calibration.getSamples());
+            Assert.assertTrue(calibration.latencyPercentile(0.99) >= calibration.latencyPercentile(0.5));
+            // an in-process round trip takes microseconds, far less than the former constant of 250 ms
+            final long sleepMillis = calibration.getSleepMillis();
+            Assert.assertTrue(calibration.toString(), sleepMillis >= SleepCalibration.MIN_SLEEP_MILLIS);
+            Assert.assertTrue(calibration.toString(), sleepMillis < 250);
+        }
+    }
+
+    @Test
+    public void slowDriver() {
+        try (ReferenceDriver driver = new ReferenceDriver(IsolationLevel.SNAPSHOT_ISOLATION) {
+            @Override
+            public void roundTrip() {
+                sleep(5);
+                super.roundTrip();
+            }
+        }) {
+            final SleepCalibration calibration = SleepCalibration.calibrate(driver, 20);
+            Assert.assertTrue(calibration.toString(), calibration.latencyPercentile(0.5) >= 5_000_000);
+            Assert.assertTrue(calibration.toString(),
+                    calibration.getSleepMillis() >= SleepCalibration.ROUND_TRIPS * 5);
+        }
+    }
+}
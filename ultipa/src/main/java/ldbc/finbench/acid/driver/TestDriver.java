@@ -1,9 +1,47 @@
 package ldbc.finbench.acid.driver;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import ldbc.finbench.acid.generator.GraphSink;
+import ldbc.finbench.acid.transactions.Interleaving;
 
 public abstract class TestDriver<TestTransactionT, QueryParametersT, QueryResultT> implements AutoCloseable {
 
+    // Number of account ids reserved for each namespace
+    public static final long NAMESPACE_SIZE = 1L << 32;
+
+    // Offset added to every account id created or looked up by the scenarios. Scenario runs in different
+    // namespaces do not share any data, so they can execute concurrently against one database.
+    protected long idBase = 0;
+
+    // Number of account ids reserved for each key of a namespace
+    public static final long KEY_STRIDE = 1L << 16;
+
+    // Offset of the current key within the namespace. A scenario can initialize one copy of its fixture per key, so
+    // transactions can spread over (or skew towards) many copies instead of contending on one.
+    protected long keyBase = 0;
+
+    public void setNamespace(long namespace) {
+        this.idBase = namespace * NAMESPACE_SIZE;
+    }
+
+    public long getIdBase() {
+        return idBase;
+    }
+
+    // Selects the copy of the fixture that the init methods create, 0 by default. It is not thread safe, the
+    // transactions of a scenario address other keys through id(key * KEY_STRIDE + localId).
+    public void setKey(long key) {
+        this.keyBase = key * KEY_STRIDE;
+    }
+
+    // Translates an account id of a scenario into the id used in the current namespace and key.
+    public long id(long localId) {
+        return idBase + keyBase + localId;
+    }
+
     public abstract TestTransactionT startTransaction() throws Exception;
 
     public abstract void commitTransaction(TestTransactionT tt) throws Exception;
@@ -22,8 +60,44 @@ public abstract class TestDriver<TestTransactionT, QueryParametersT, QueryResult
         }
     }
 
+    // A control point of a scenario, where a conflicting transaction should interleave. A transaction that runs
+    // interleaved (see Interleaver) waits here until the harness releases it, any other sleeps for the given time.
+    public void interleave(long millis) {
+        if (!Interleaving.arrive()) {
+            sleep(millis);
+        }
+    }
+
+    // Sleeps, unless the transaction runs interleaved and the harness controls when it continues.
+    public void delay(long millis) {
+        if (!Interleaving.isInterleaved()) {
+            sleep(millis);
+        }
+    }
+
+    // One round trip to the database: a transaction with a single read in the current namespace, used by
+    // SleepCalibration to measure the latency of the driver.
+    public void roundTrip() {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("minId", id(0));
+        parameters.put("maxId", id(0));
+        atomicityCheck(parameters);
+    }
+
     public abstract void nukeDatabase();
 
+    // Removes the data of the current namespace only. The default nukes the whole database, so drivers that do not
+    // override it cannot run scenarios concurrently.
+    public void nukeNamespace() {
+        nukeDatabase();
+    }
+
+    // Whether nukeNamespace removes the current namespace only. Drivers that override it return true; callers that
+    // share the database with others (see BackgroundWorkload) refuse drivers that would nuke all of it.
+    public boolean supportsNamespaces() {
+        return false;
+    }
+
     // Atomicity tests
 
     public abstract void atomicityInit();
@@ -34,6 +108,12 @@ public abstract class TestDriver<TestTransactionT, QueryParametersT, QueryResult
 
     public abstract Map<String, Object> atomicityCheck();
 
+    // Same counts as atomicityCheck(), restricted to the accounts with minId <= id <= maxId so that a run can be
+    // validated on a large pre-populated graph. The default ignores the range and checks the whole graph.
+    public Map<String, Object> atomicityCheck(Map<String, Object> parameters) {
+        return atomicityCheck();
+    }
+
     // G0 Dirty Write
 
     public abstract void g0Init();
@@ -111,4 +191,76 @@ public abstract class TestDriver<TestTransactionT, QueryParametersT, QueryResult
     public abstract Map<String, Object> wsW(Map<String, Object> parameters);
 
     public abstract Map<String, Object> wsR(Map<String, Object> parameters);
+
+    // Returns every violating account pair. The default only reports the first pair found by wsR, drivers
+    // should override it with a check that scales to large numbers of pairs.
+    public List<Map<String, Object>> wsViolations(Map<String, Object> parameters) {
+        final Map<String, Object> violation = wsR(parameters);
+        return violation.isEmpty() ? Collections.emptyList() : Collections.singletonList(violation);
+    }
+
+    // Background workload
+
+    // FinBench-style write transactions that a BackgroundWorkload runs concurrently with the scenarios, in a namespace
+    // of its own. Every transaction moves the amount between two balances and records it as an edge with the amount
+    // and the timestamp (epoch millis); balances may become negative. The exception is ReferenceDriver: its engine
+    // only has transfer edges, so it records the transfers and only moves the balances of the other transactions.
+    // Drivers that do not support the workload throw UnsupportedOperationException.
+
+    // Creates the accounts id(0) .. id(numAccounts - 1) with the given balance and the loans id(numAccounts) ..
+    // id(numAccounts + numLoans - 1) with the given loanAmount as their balance.
+    public void workloadInit(Map<String, Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support the workload");
+    }
+
+    // account1Id -[transfer]-> account2Id
+    public void transfer(Map<String, Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support the workload");
+    }
+
+    // loanId -[deposit]-> accountId
+    public void deposit(Map<String, Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support the workload");
+    }
+
+    // account1Id -[withdraw]-> account2Id
+    public void withdraw(Map<String, Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support the workload");
+    }
+
+    // accountId -[repay]-> loanId
+    public void repay(Map<String, Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support the workload");
+    }
+
+    // Bulk loading
+
+    // Creates nodes with the given label (Account, Person, Company or Loan), each given by its properties including
+    // its id. Large graphs are streamed through these methods in batches (see GraphGenerator), outside of any
+    // scenario. Drivers that do not support bulk loading throw UnsupportedOperationException.
+    public void bulkLoadNodes(String label, List<Map<String, Object>> nodes) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support bulk loading");
+    }
+
+    // Creates edges of the given type from nodes with fromLabel to nodes with toLabel, each given by the ids of its
+    // endpoints (fromId and toId) and the map of its properties (properties).
+    public void bulkLoadEdges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support bulk loading");
+    }
+
+    // Snapshots
+
+    // Writes the nodes and edges of the current namespace to the sink in the format of bulkLoadNodes and
+    // bulkLoadEdges, all nodes first, with the ids relative to the namespace: bulk loading the output into an empty
+    // namespace restores the graph there (see FixtureCache). Drivers that cannot list their graph throw
+    // UnsupportedOperationException.
+    public void dumpNamespace(GraphSink sink) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support snapshots");
+    }
+
+    // Whether dumpNamespace and the bulk load path are implemented, so FixtureCache can snapshot the fixtures.
+    // Drivers that implement them return true.
+    public boolean supportsSnapshots() {
+        return false;
+    }
 }
@@ -0,0 +1,29 @@
+package ldbc.finbench.acid.generator;
+
+import java.util.List;
+import java.util.Map;
+import ldbc.finbench.acid.driver.TestDriver;
+
+// Where a generated graph goes, one batch of nodes or edges at a time. The batches are handed over and dropped, so a
+// sink must not keep them unless it means to materialise the graph.
+public interface GraphSink {
+
+    void nodes(String label, List<Map<String, Object>> nodes);
+
+    void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges);
+
+    // writes through the bulk load path of the driver
+    static GraphSink of(TestDriver<?, ?, ?> driver) {
+        return new GraphSink() {
+            @Override
+            public void nodes(String label, List<Map<String, Object>> nodes) {
+                driver.bulkLoadNodes(label, nodes);
+            }
+
+            @Override
+            public void edges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+                driver.bulkLoadEdges(fromLabel, type, toLabel, edges);
+            }
+        };
+    }
+}
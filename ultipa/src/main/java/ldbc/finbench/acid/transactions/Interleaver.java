@@ -0,0 +1,92 @@
+package ldbc.finbench.acid.transactions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Runs transactions in rounds with a fixed interleaving instead of sleeping and hoping for it: the paused
+// transactions of a round start first and stop at their control point, then the conflicting ones execute, then the
+// paused ones finish. A conflicting transaction blocked by a lock of a paused one cannot execute before it finishes,
+// so the round is released after conflictMillis at the latest.
+public final class Interleaver {
+
+    private Interleaver() {
+    }
+
+    // Runs one round and returns the futures of the paused transactions followed by those of the conflicting ones;
+    // all of them are done.
+    public static <R> List<Future<R>> invokeRound(ExecutorService executor, List<? extends Callable<R>> paused,
+                                                  List<? extends Callable<R>> conflicting, long conflictMillis)
+            throws InterruptedException {
+        final Interleaving interleaving = new Interleaving(paused.size());
+        final List<Future<R>> futures = new ArrayList<>(paused.size() + conflicting.size());
+        try {
+            for (Callable<R> transaction : paused) {
+                futures.add(executor.submit(() -> interleaving.run(transaction)));
+            }
+            interleaving.awaitArrival();
+            for (Callable<R> transaction : conflicting) {
+                futures.add(executor.submit(transaction));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(conflictMillis);
+            for (Future<R> future : futures.subList(paused.size(), futures.size())) {
+                await(future, Math.max(0, deadline - System.nanoTime()));
+            }
+        } finally {
+            interleaving.release();
+        }
+        for (Future<R> future : futures) {
+            await(future, Long.MAX_VALUE);
+        }
+        return futures;
+    }
+
+    // Runs the rounds one after the other and returns the futures of all clients in their original order. round[i]
+    // is the round of client i and paused[i] whether it is paused in its round.
+    public static <R> List<Future<R>> invokeAll(ExecutorService executor, List<? extends Callable<R>> clients,
+                                                int[] round, boolean[] paused, long conflictMillis)
+            throws InterruptedException {
+        final List<Future<R>> futures = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            futures.add(null);
+        }
+        final int rounds = clients.isEmpty() ? 0 : Arrays.stream(round).max().getAsInt() + 1;
+        for (int r = 0; r < rounds; r++) {
+            final List<Integer> indices = new ArrayList<>();
+            final List<Callable<R>> pausedClients = new ArrayList<>();
+            final List<Callable<R>> conflictingClients = new ArrayList<>();
+            for (int i = 0; i < clients.size(); i++) {
+                if (round[i] == r && paused[i]) {
+                    indices.add(i);
+                    pausedClients.add(clients.get(i));
+                }
+            }
+            for (int i = 0; i < clients.size(); i++) {
+                if (round[i] == r && !paused[i]) {
+                    indices.add(i);
+                    conflictingClients.add(clients.get(i));
+                }
+            }
+            final List<Future<R>> roundFutures = invokeRound(executor, pausedClients, conflictingClients,
+                    conflictMillis);
+            for (int i = 0; i < indices.size(); i++) {
+                futures.set(indices.get(i), roundFutures.get(i));
+            }
+        }
+        return futures;
+    }
+
+    private static void await(Future<?> future, long nanos) throws InterruptedException {
+        try {
+            future.get(nanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // the caller inspects the future
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ldbc.finbench.acid.ultipa;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+// Per-phase timings of the HTTP calls to the gateway, recorded by an OkHttp EventListener. Enabled with
+// -Dultipa.http.metrics=true; the phases are
+// queue:    from the start of the call until it looks up a connection, i.e. waiting for the dispatcher
+// dns:      name resolution of the gateway (only for new connections)
+// connect:  TCP connect including TLS (only for new connections)
+// tls:      TLS handshake (only for new https connections)
+// request:  writing the request headers and body
+// server:   from the end of the request until the response headers arrive
+// response: reading the response headers and body
+// call:     the whole call
+public class HttpMetrics {
+
+    public enum Phase {
+        QUEUE, DNS, CONNECT, TLS, REQUEST, SERVER, RESPONSE, CALL
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    public HttpMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    // OkHttp creates one listener per call, so the listener keeps the timestamps of its call
+    public EventListener listener(Call call) {
+        return new CallListener();
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getConnectionsAcquired() {
+        return connectionsAcquired.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    // the fraction of calls that got a pooled connection instead of opening a new one
+    public double connectionReuseRate() {
+        final long acquired = connectionsAcquired.get();
+        return acquired == 0 ? 0 : 1 - (double) Math.min(connectionsOpened.get(), acquired) / acquired;
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        connectionsAcquired.set(0);
+        connectionsOpened.set(0);
+        failedCalls.set(0);
+    }
+
+    public String report(ConnectionPool pool) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %8s %10s %10s %10s %10s%n", "phase", "count", "mean ms", "p50 ms", "p99 ms",
+                "max ms"));
+        for (Map.Entry<Phase, LatencyHistogram> e : histograms.entrySet()) {
+            final LatencyHistogram h = e.getValue();
+            sb.append(String.format("%-10s %8d %10.3f %10.3f %10.3f %10.3f%n", e.getKey().name().toLowerCase(),
+                    h.getCount(), h.meanMillis(), h.percentileMillis(0.5), h.percentileMillis(0.99),
+                    h.maxMillis()));
+        }
+        sb.append(String.format("failed calls: %d, connections acquired: %d, opened: %d, reuse rate: %.1f%%, "
+                        + "pool: %d connections, %d idle%n", failedCalls.get(), connectionsAcquired.get(),
+                connectionsOpened.get(), 100 * connectionReuseRate(), pool.connectionCount(),
+                pool.idleConnectionCount()));
+        return sb.toString();
+    }
+
+    private void record(Phase phase, long startNanos, long endNanos) {
+        if (startNanos != 0) {
+            histograms.get(phase).record(endNanos - startNanos);
+        }
+    }
+
+    private class CallListener extends EventListener {
+        private long callStart;
+        private long queueEnd;
+        private long dnsStart;
+        private long connectStart;
+        private long tlsStart;
+        private long requestStart;
+        private long requestEnd;
+        private long responseStart;
+
+        // the first event after the call left the dispatcher queue ends the queue phase
+        private void dequeued() {
+            if (queueEnd == 0) {
+                queueEnd = System.nanoTime();
+                record(Phase.QUEUE, callStart, queueEnd);
+            }
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dequeued();
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            record(Phase.DNS, dnsStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            dequeued();
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            tlsStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            record(Phase.TLS, tlsStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectionsOpened.incrementAndGet();
+            record(Phase.CONNECT, connectStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                                  IOException ioe) {
+            record(Phase.CONNECT, connectStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            dequeued();
+            connectionsAcquired.incrementAndGet();
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            responseStart = System.nanoTime();
+            record(Phase.REQUEST, requestStart, requestEnd);
+            record(Phase.SERVER, requestEnd, responseStart);
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            record(Phase.RESPONSE, responseStart, System.nanoTime());
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            record(Phase.CALL, callStart, System.nanoTime());
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failedCalls.incrementAndGet();
+            record(Phase.CALL, callStart, System.nanoTime());
+        }
+    }
+}
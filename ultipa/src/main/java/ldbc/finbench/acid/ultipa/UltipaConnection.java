@@ -1,37 +1,89 @@
 package ldbc.finbench.acid.ultipa;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class UltipaConnection {
-    private String httpServer;
-    private String host;
-    private int port;
-    private String username;
-    private String password;
-    private OkHttpClient okHttpClient;
-
-    private String transactionId;
-
-    static final ConnectionPool CONNECTION_POOL = new ConnectionPool(20, 600, TimeUnit.SECONDS);
+    private final UltipaSession session;
+    private final String httpServer;
+
+    // set on a dispatcher thread when the transaction was started asynchronously
+    private volatile String transactionId;
+    // true once the transaction was committed or rolled back, close() rolls back otherwise
+    private volatile boolean finished;
+
+    // transactions started and closed on the gateway in this JVM, the difference are leaked transactions
+    private static final AtomicLong OPENED = new AtomicLong();
+    private static final AtomicLong CLOSED = new AtomicLong();
+
+    // Gson and its type adapters are thread-safe, so they are created once instead of once per request
+    static final Gson GSON = new Gson();
+    static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = GSON.getAdapter(JsonElement.class);
+    static final TypeAdapter<com.ultipa.sdk.operate.response.Response> RESPONSE_ADAPTER =
+            GSON.getAdapter(com.ultipa.sdk.operate.response.Response.class);
+    static final Type STRING_MAP_TYPE = new TypeToken<Map<String, String>>() {
+    }.getType();
+    // field of the response that holds the result items by alias
+    static final String ITEMS = "items";
+    // an alias that never occurs, requests that no result items are decoded
+    public static final String STATUS_ONLY = "";
+
+    static final ConnectionPool CONNECTION_POOL = new ConnectionPool(
+            Integer.getInteger("ultipa.http.maxIdleConnections", 20),
+            Long.getLong("ultipa.http.keepAliveSeconds", 600), TimeUnit.SECONDS);
+
+    // per-phase timings of the calls to the gateway, see HttpMetrics
+    static final boolean HTTP_METRICS_ENABLED = Boolean.getBoolean("ultipa.http.metrics");
+    static final HttpMetrics HTTP_METRICS = new HttpMetrics();
+
+    // One client for all connections, so that transactions share the connection pool and the dispatcher threads.
+    static final OkHttpClient HTTP_CLIENT = newHttpClient();
 
     public UltipaConnection(String httpServer, String host, int port, String username, String password) {
-        Objects.requireNonNull(httpServer);
-        this.httpServer = httpServer.endsWith("/") ? httpServer.substring(0, httpServer.length() - 1) : httpServer;
-        this.host = host;
-        this.port = port;
-        this.username = username;
-        this.password = password;
+        this(UltipaSession.of(httpServer, host, port, username, password));
+    }
+
+    public UltipaConnection(UltipaSession session) {
+        this.session = Objects.requireNonNull(session);
+        this.httpServer = session.getHttpServer();
+    }
 
+    private static OkHttpClient newHttpClient() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Integer.getInteger("ultipa.http.maxRequests", 64));
+        dispatcher.setMaxRequestsPerHost(Integer.getInteger("ultipa.http.maxRequestsPerHost", 64));
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(1000, TimeUnit.SECONDS)
+                .readTimeout(1000, TimeUnit.SECONDS)
+                .connectionPool(CONNECTION_POOL)
+                .dispatcher(dispatcher);
+        if (HTTP_METRICS_ENABLED) {
+            builder.eventListenerFactory(HTTP_METRICS::listener);
+        }
+        return builder.build();
     }
 
     public static void assertSuccess(okhttp3.Response response) {
@@ -40,71 +92,118 @@ public class UltipaConnection {
         }
     }
 
+    // Logs in to the gateway unless the shared session is still valid.
     public void connect() throws IOException {
-        okHttpClient = new OkHttpClient.Builder()
-                .connectTimeout(1000, TimeUnit.SECONDS)
-                .readTimeout(1000, TimeUnit.SECONDS)
-                .connectionPool(CONNECTION_POOL)
-                .build();
-
-        {
-            Gson gson = new Gson();
-            String json = gson.toJson(ImmutableMap.of("ip", host, "port", port, "username", username, "password", password));
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
+        session.ensureLoggedIn();
+    }
 
-            Request request = new Request.Builder()
-                    .url(httpServer + "/login")
-                    .post(requestBody)
-                    .build();
+    public void disconnect() throws IOException {
+        session.logout();
+    }
 
-            try (okhttp3.Response response = okHttpClient.newCall(request).execute()) {
-                assertSuccess(response);
+    // Executes the request. If the gateway no longer accepts the session, it logs in again and retries the request
+    // once if it is not tied to a transaction (see isRetryable), otherwise it fails so that the transaction aborts.
+    okhttp3.Response execute(Request request) throws IOException {
+        final long logins = session.getLogins();
+        okhttp3.Response response = HTTP_CLIENT.newCall(request).execute();
+        if (isUnauthorized(response)) {
+            response.close();
+            session.relogin(logins);
+            if (!isRetryable(request)) {
+                throw unauthorized(request, response);
             }
-
+            response = HTTP_CLIENT.newCall(request).execute();
         }
+        return response;
     }
 
-    public void disconnect() throws IOException {
-        if (okHttpClient != null) {
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{}");
+    // Executes the request on the dispatcher of the shared client, logging in again and retrying like execute().
+    // The future completes on a dispatcher thread, the caller has to close the response.
+    CompletableFuture<okhttp3.Response> executeAsync(Request request) {
+        final CompletableFuture<okhttp3.Response> future = new CompletableFuture<>();
+        enqueue(request, future, true);
+        return future;
+    }
 
-            Request request = new Request.Builder()
-                    .url(httpServer + "/logout")
-                    .post(requestBody)
-                    .build();
+    private void enqueue(Request request, CompletableFuture<okhttp3.Response> future, boolean retry) {
+        final long logins = session.getLogins();
+        HTTP_CLIENT.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
 
-            try (Response response = okHttpClient.newCall(request).execute()) {
-                assertSuccess(response);
+            @Override
+            public void onResponse(Call call, okhttp3.Response response) {
+                if (retry && isUnauthorized(response)) {
+                    response.close();
+                    try {
+                        session.relogin(logins);
+                    } catch (IOException e) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    if (isRetryable(request)) {
+                        enqueue(request, future, false);
+                    } else {
+                        future.completeExceptionally(unauthorized(request, response));
+                    }
+                    return;
+                }
+                future.complete(response);
             }
-        }
+        });
     }
 
-    public void begin() throws IOException {
+    private static boolean isUnauthorized(okhttp3.Response response) {
+        return response.code() == 401 || response.code() == 403;
+    }
 
-        {
-            Gson gson = new Gson();
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{}");
+    // Starting a transaction and running a query outside of one can be sent again in the new session. The requests
+    // of a transaction cannot: the transaction belonged to the rejected session, and a commit, run or batch that
+    // was sent twice could be applied twice.
+    private static boolean isRetryable(Request request) {
+        final String path = request.url().encodedPath();
+        return path.endsWith("/transaction/start") || path.endsWith("/connection/run");
+    }
 
-            Request request = new Request.Builder()
-                    .url(httpServer + "/transaction/start")
-                    .post(requestBody)
-                    .build();
+    private static IOException unauthorized(Request request, okhttp3.Response response) {
+        return new IOException("the gateway rejected the session (" + response.code() + ") of "
+                + request.url().encodedPath());
+    }
 
+    private Request beginRequest() {
+        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{}");
+        return new Request.Builder()
+                .url(httpServer + "/transaction/start")
+                .post(requestBody)
+                .build();
+    }
 
-            okhttp3.Call call = okHttpClient.newCall(request);
-            try (okhttp3.Response response = call.execute()) {
-                ResponseBody body = response.body();
-                Objects.requireNonNull(body);
-                String text = body.string();
-                Type type = new TypeToken<Map<String, String>>() {
-                }.getType();
+    private void started(okhttp3.Response response) throws IOException {
+        try (okhttp3.Response r = response) {
+            ResponseBody body = r.body();
+            Objects.requireNonNull(body);
+            Map<String, String> map = GSON.fromJson(body.charStream(), STRING_MAP_TYPE);
+            transactionId = map.get("data");
+            Objects.requireNonNull(transactionId);
+            finished = false;
+            OPENED.incrementAndGet();
+        }
+    }
 
+    public void begin() throws IOException {
+        started(execute(beginRequest()));
+    }
 
-                Map<Object, Object> map = gson.fromJson(text, type);
-                transactionId = (String) map.get("data");
-                Objects.requireNonNull(transactionId);
+    public CompletableFuture<Void> beginAsync() {
+        return executeAsync(beginRequest()).thenAccept(response -> {
+            try {
+                started(response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
+        });
     }
 
     public String format(String text) {
@@ -112,52 +211,22 @@ public class UltipaConnection {
     }
 
     public String format(String text, Map<String, Object> queryParameters) {
-        Set<String> keys = queryParameters.keySet();
-        for (String key : keys) {
-            String param = "$" + key;
-            if (text.contains(param)) {
-                Object value = queryParameters.get(key);
-                text = text.replace(param, value.toString());
-            }
+        // queries that were rendered already are passed without parameters, they are not compiled and cached
+        if (queryParameters.isEmpty()) {
+            return text;
         }
-        return text;
+        return UqlTemplate.of(text).render(queryParameters);
     }
 
     public UltipaResultSet run(String uql) {
         return run(uql, ImmutableMap.of());
     }
 
-    public UltipaResultSet run(String uql, Map<String, Object> queryParameters) {
+    // Runs the query and decodes only the result items of the given aliases, or all of them if none are given.
+    // Pass STATUS_ONLY if only the status of the response is needed.
+    public UltipaResultSet run(String uql, Map<String, Object> queryParameters, String... aliases) {
         try {
-            Gson gson = new Gson();
-            String text = format(uql, queryParameters);
-
-            Request request;
-            if (transactionId != null) {
-                String json = gson.toJson(ImmutableMap.of("transactionId", transactionId, "uql", text));
-                RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
-
-                request = new Request.Builder()
-                        .url(this.httpServer + "/transaction/run")
-                        .post(requestBody)
-                        .build();
-            } else {
-                String json = gson.toJson(ImmutableMap.of("uql", text));
-                RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
-
-                request = new Request.Builder()
-                        .url(this.httpServer + "/connection/run")
-                        .post(requestBody)
-                        .build();
-            }
-
-
-            try (okhttp3.Response response = okHttpClient.newCall(request).execute()) {
-                ResponseBody body = response.body();
-                String body_string = body.string();
-                com.ultipa.sdk.operate.response.Response ultipaResponse = gson.fromJson(body_string, com.ultipa.sdk.operate.response.Response.class);
-                return new UltipaResultSet(ultipaResponse);
-            }
+            return result(execute(runRequest(format(uql, queryParameters))), ImmutableSet.copyOf(aliases));
         } catch (IOException exception) {
             catch_exception(exception);
         }
@@ -165,56 +234,300 @@ public class UltipaConnection {
         return new UltipaResultSet(response);
     }
 
-    public static void catch_exception(final Exception exception) {
-        exception.printStackTrace();
+    // Like run(), but returns as soon as the request is sent. Statements that are issued before the previous one
+    // completed are pipelined on the gateway and may execute in any order, so only independent statements of a
+    // transaction should be in flight at the same time.
+    public CompletableFuture<UltipaResultSet> runAsync(String uql, Map<String, Object> queryParameters,
+                                                       String... aliases) {
+        final Set<String> aliasSet = ImmutableSet.copyOf(aliases);
+        return executeAsync(runRequest(format(uql, queryParameters))).thenApply(response -> {
+            try {
+                return result(response, aliasSet);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-    public void commit() {
-        try {
-            if (transactionId != null) {
-                Objects.requireNonNull(transactionId);
-                Request request = new Request.Builder()
-                        .url(httpServer + "/transaction/commit?transactionId=" + transactionId)
-                        .get()
-                        .build();
-                try (okhttp3.Response response = okHttpClient.newCall(request).execute()) {
+    private Request runRequest(String text) {
+        if (transactionId != null) {
+            String json = GSON.toJson(ImmutableMap.of("transactionId", transactionId, "uql", text));
+            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
+
+            return new Request.Builder()
+                    .url(this.httpServer + "/transaction/run")
+                    .post(requestBody)
+                    .build();
+        } else {
+            String json = GSON.toJson(ImmutableMap.of("uql", text));
+            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
+
+            return new Request.Builder()
+                    .url(this.httpServer + "/connection/run")
+                    .post(requestBody)
+                    .build();
+        }
+    }
+
+    private static UltipaResultSet result(okhttp3.Response response, Set<String> aliases) throws IOException {
+        try (okhttp3.Response r = response) {
+            ResponseBody body = r.body();
+            Objects.requireNonNull(body);
+            return new UltipaResultSet(decode(body.charStream(), aliases));
+        }
+    }
 
+    // Decodes a gateway response while streaming the body. The result items of aliases that were not requested
+    // are skipped in the stream instead of being materialised; an empty set keeps all of them.
+    static com.ultipa.sdk.operate.response.Response decode(Reader reader, Set<String> aliases) throws IOException {
+        final JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        return decode(in, aliases);
+    }
+
+    private static com.ultipa.sdk.operate.response.Response decode(JsonReader in, Set<String> aliases)
+            throws IOException {
+        final JsonObject tree = new JsonObject();
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if (ITEMS.equals(name) && !aliases.isEmpty() && in.peek() == JsonToken.BEGIN_OBJECT) {
+                final JsonObject items = new JsonObject();
+                in.beginObject();
+                while (in.hasNext()) {
+                    final String alias = in.nextName();
+                    if (aliases.contains(alias)) {
+                        items.add(alias, JSON_ELEMENT_ADAPTER.read(in));
+                    } else {
+                        in.skipValue();
+                    }
                 }
+                in.endObject();
+                tree.add(name, items);
+            } else {
+                tree.add(name, JSON_ELEMENT_ADAPTER.read(in));
             }
+        }
+        in.endObject();
+        return RESPONSE_ADAPTER.fromJsonTree(tree);
+    }
 
+    // Runs the statements in one transaction and commits it. If the gateway has a /transaction/batch endpoint this is
+    // a single round trip: it takes {"uqls": [...], "commit": true}, runs the statements in order, commits if all of
+    // them succeeded and answers {"data": [...]} with one response per statement in the format of /transaction/run.
+    // Otherwise the transaction is started, run and committed statement by statement. A failed statement rolls
+    // back the transaction, the statements after it are not run.
+    public List<UltipaResultSet> runBatch(List<String> uqls, String... aliases) {
+        return runBatch(uqls, true, aliases);
+    }
+
+    // Like runBatch(uqls, aliases), but with stopOnError false all statements are run and the transaction is
+    // committed even if some of them failed ("stopOnError": false in the batch request).
+    public List<UltipaResultSet> runBatch(List<String> uqls, boolean stopOnError, String... aliases) {
+        final Set<String> aliasSet = ImmutableSet.copyOf(aliases);
+        try {
+            connect();
+            if (session.isBatchSupported()) {
+                final List<UltipaResultSet> results = batch(uqls, stopOnError, aliasSet);
+                if (results != null) {
+                    return results;
+                }
+                session.setBatchSupported(false);
+            }
+            begin();
         } catch (IOException exception) {
             catch_exception(exception);
+            return Collections.singletonList(new UltipaResultSet(new com.ultipa.sdk.operate.response.Response()));
+        }
+        final List<UltipaResultSet> results = new ArrayList<>(uqls.size());
+        for (String uql : uqls) {
+            final UltipaResultSet result = run(uql, ImmutableMap.of(), aliases);
+            results.add(result);
+            if (stopOnError && !result.isOk()) {
+                rollback();
+                return results;
+            }
         }
+        commit();
+        return results;
     }
 
-    public void rollback() {
-        try {
-            if (transactionId != null) {
-                Request request = new Request.Builder()
-                        .url(httpServer + "/transaction/rollback?transactionId=" + transactionId)
-                        .get()
-                        .build();
-                try (okhttp3.Response response = okHttpClient.newCall(request).execute()) {
+    // null if the gateway has no batch endpoint; any other error status fails the batch, its body has no results
+    private List<UltipaResultSet> batch(List<String> uqls, boolean stopOnError, Set<String> aliases)
+            throws IOException {
+        String json = GSON.toJson(ImmutableMap.of("uqls", uqls, "commit", true, "stopOnError", stopOnError));
+        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
+        Request request = new Request.Builder()
+                .url(httpServer + "/transaction/batch")
+                .post(requestBody)
+                .build();
+        try (okhttp3.Response response = execute(request)) {
+            if (response.code() == 404 || response.code() == 405 || response.code() == 501) {
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("the gateway failed the batch (" + response.code() + ")");
+            }
+            ResponseBody body = response.body();
+            Objects.requireNonNull(body);
+            return decodeBatch(body.charStream(), aliases);
+        }
+    }
 
+    static List<UltipaResultSet> decodeBatch(Reader reader, Set<String> aliases) throws IOException {
+        final JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        final List<UltipaResultSet> results = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("data".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    results.add(new UltipaResultSet(decode(in, aliases)));
                 }
+                in.endArray();
+            } else {
+                in.skipValue();
             }
-        } catch (IOException exception) {
-            catch_exception(exception);
         }
+        in.endObject();
+        return results;
+    }
+
+    public static void catch_exception(final Exception exception) {
+        exception.printStackTrace();
+    }
+
+    private Request endRequest(String action) {
+        return new Request.Builder()
+                .url(httpServer + "/transaction/" + action + "?transactionId=" + transactionId)
+                .get()
+                .build();
+    }
+
+    public static long getOpenedTransactions() {
+        return OPENED.get();
+    }
+
+    public static long getClosedTransactions() {
+        return CLOSED.get();
+    }
+
+    public boolean isOpen() {
+        return transactionId != null;
     }
 
+    // Commits and closes the transaction.
+    public void commit() {
+        end("commit");
+    }
+
+    // Rolls back and closes the transaction.
+    public void rollback() {
+        end("rollback");
+    }
+
+    // A commit that the gateway did not accept throws after the transaction was closed, so that the transaction
+    // counts as aborted; a failed rollback is only logged.
+    private void end(String action) {
+        if (transactionId == null) {
+            return;
+        }
+        RuntimeException failure = null;
+        if (!finished) {
+            try (okhttp3.Response response = execute(endRequest(action))) {
+                assertSuccess(response);
+            } catch (IOException exception) {
+                failure = new UncheckedIOException(exception);
+            } catch (RuntimeException exception) {
+                failure = exception;
+            } finally {
+                finished = true;
+            }
+        }
+        close();
+        if (failure != null) {
+            if ("commit".equals(action)) {
+                throw failure;
+            }
+            catch_exception(failure);
+        }
+    }
+
+    // Closes the transaction on the gateway, rolling it back first unless it was committed or rolled back.
+    // Closing a closed connection does nothing.
     public void close() {
+        if (transactionId == null) {
+            return;
+        }
+        if (!finished) {
+            rollback();
+            return;
+        }
         try {
-            Request request = new Request.Builder()
-                    .url(httpServer + "/transaction/close?transactionId=" + transactionId)
-                    .get()
-                    .build();
-            try (okhttp3.Response response = okHttpClient.newCall(request).execute()) {
-
+            try (okhttp3.Response response = execute(endRequest("close"))) {
+                closed(response);
             }
-            transactionId = null;
         } catch (IOException exception) {
             catch_exception(exception);
+        } finally {
+            transactionId = null;
+        }
+    }
+
+    private void closed(okhttp3.Response response) {
+        if (response.isSuccessful()) {
+            CLOSED.incrementAndGet();
+        }
+    }
+
+    public CompletableFuture<Void> commitAsync() {
+        return endAsync("commit");
+    }
+
+    public CompletableFuture<Void> rollbackAsync() {
+        return endAsync("rollback");
+    }
+
+    public CompletableFuture<Void> closeAsync() {
+        if (transactionId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!finished) {
+            return rollbackAsync();
+        }
+        return executeAsync(endRequest("close"))
+                .whenComplete((response, e) -> transactionId = null)
+                .thenAccept(response -> {
+                    try (okhttp3.Response r = response) {
+                        closed(r);
+                    }
+                });
+    }
+
+    // Ends the transaction and closes it, the close is attempted even if the commit or rollback failed. Like
+    // commit(), the future of a commit that the gateway did not accept completes exceptionally.
+    private CompletableFuture<Void> endAsync(String action) {
+        if (transactionId == null || finished) {
+            return closeAsync();
         }
+        return executeAsync(endRequest(action))
+                .handle((response, e) -> {
+                    Throwable failure = e;
+                    if (response != null) {
+                        if ("commit".equals(action) && !response.isSuccessful()) {
+                            failure = new RuntimeException("http request failed: " + response);
+                        }
+                        response.close();
+                    }
+                    finished = true;
+                    final Throwable cause = failure;
+                    return closeAsync().thenRun(() -> {
+                        if (cause != null) {
+                            throw new CompletionException(cause);
+                        }
+                    });
+                })
+                .thenCompose(f -> f);
     }
 }
@@ -2,10 +2,15 @@ package ldbc.finbench.acid.ultipa;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
 import ldbc.finbench.acid.driver.TestDriver;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Object>, UltipaResultSet> {
@@ -15,6 +20,8 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
     int port;
     String username;
     String password;
+    // login shared by all transactions of this driver
+    final UltipaSession session;
 
     public UltipaDriver(String httpServer,
                         String host,
@@ -26,6 +33,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         this.port = port;
         this.username = username;
         this.password = password;
+        this.session = UltipaSession.of(httpServer, host, port, username, password);
     }
 
 
@@ -45,10 +53,24 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         reset();
     }
 
+    // Transactions that were started but never closed stay open on the gateway and hold its locks and memory. The
+    // counts are for all drivers of this JVM.
+    public static long getLeakedTransactions() {
+        return UltipaConnection.getOpenedTransactions() - UltipaConnection.getClosedTransactions();
+    }
+
+    // the per-phase timings of the HTTP calls so far, null unless -Dultipa.http.metrics=true
+    public static String getHttpMetricsReport() {
+        if (!UltipaConnection.HTTP_METRICS_ENABLED) {
+            return null;
+        }
+        return UltipaConnection.HTTP_METRICS.report(UltipaConnection.CONNECTION_POOL);
+    }
+
 
     public UltipaDriver reset() {
         try {
-            UltipaConnection ultipaConnection = new UltipaConnection(httpServer, host, port, username, password);
+            UltipaConnection ultipaConnection = new UltipaConnection(session);
             ultipaConnection.connect();
             ultipaConnection.disconnect();
         } catch (IOException exception) {
@@ -58,20 +80,16 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
     }
 
     public String format(String text, Map<String, Object> queryParameters) {
-        Set<String> keys = queryParameters.keySet();
-        for (String key : keys) {
-            String param = "$" + key;
-            if (text.contains(param)) {
-                Object value = queryParameters.get(key);
-                text = text.replace(param, value.toString());
-            }
+        // queries that were rendered already are passed without parameters, they are not compiled and cached
+        if (queryParameters.isEmpty()) {
+            return text;
         }
-        return text;
+        return UqlTemplate.of(text).render(queryParameters);
     }
 
     @Override
     public UltipaConnection startTransaction() {
-        UltipaConnection ultipaConnection = new UltipaConnection(httpServer, host, port, username, password);
+        UltipaConnection ultipaConnection = new UltipaConnection(session);
         try {
             ultipaConnection.connect();
             ultipaConnection.begin();
@@ -81,6 +99,34 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         return ultipaConnection;
     }
 
+    // Starts a transaction without waiting for /transaction/start, the login is shared and usually cached.
+    public CompletableFuture<UltipaConnection> startTransactionAsync() {
+        final UltipaConnection ultipaConnection = new UltipaConnection(session);
+        try {
+            ultipaConnection.connect();
+        } catch (IOException ioException) {
+            final CompletableFuture<UltipaConnection> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ioException);
+            return failed;
+        }
+        return ultipaConnection.beginAsync().thenApply(v -> ultipaConnection);
+    }
+
+    // Runs the statements of a short write transaction and commits them, in one round trip if the gateway
+    // supports batches. Fails if a statement failed or was not run, e.g. because the batch request failed.
+    public void runBatch(List<String> uqls) {
+        final List<UltipaResultSet> results = new UltipaConnection(session).runBatch(uqls, UltipaConnection.STATUS_ONLY);
+        for (UltipaResultSet result : results) {
+            if (!result.isOk()) {
+                throw new IllegalStateException("the batch failed: " + result);
+            }
+        }
+        if (results.size() != uqls.size()) {
+            throw new IllegalStateException(
+                    String.format("the batch ran %d of its %d statements", results.size(), uqls.size()));
+        }
+    }
+
     @Override
     public void commitTransaction(UltipaConnection tt) {
         tt.commit();
@@ -88,7 +134,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
     @Override
     public void abortTransaction(UltipaConnection tt) {
-
+        tt.rollback();
     }
 
     @Override
@@ -97,138 +143,74 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         return map;
     }
 
+    // -Dultipa.schema.rebuild=true drops and creates the schema before every test, by default it is created once per
+    // run and later resets only delete the data
+    private static final boolean REBUILD_SCHEMA = Boolean.getBoolean("ultipa.schema.rebuild");
+
     @Override
     public void nukeDatabase() {
         final String cypher = "MATCH (n) DETACH DELETE n";
 
-        final UltipaConnection tt = startTransaction();
-
-        try {
-            try {
-                tt.run(("drop().node_schema(@person)"));
-                tt.run(("create().node_schema('person')"));
-                tt.run(("create().node_property(@person,'name','string')"));
-                tt.run(("create().node_property(@person,'isBlocked','int32')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().node_schema(@company)"));
-                tt.run(("create().node_schema('company')"));
-                tt.run(("create().node_property(@company,'name','string')"));
-                tt.run(("create().node_property(@company,'isBlocked','int32')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().node_schema(@account)"));
-                tt.run(("create().node_schema('account')"));
-                tt.run(("create().node_property(@account,'createTime','datetime')"));
-                tt.run(("create().node_property(@account,'isBlocked','int32')"));
-                tt.run(("create().node_property(@account,'type','string')"));
-
-                tt.run(("create().node_property(@account,'transHistory','int64[]')"));
-                tt.run(("create().node_property(@account,'balance','int64')"));
-                tt.run(("create().node_property(@account,'numTransferred','int64')"));
-                tt.run(("create().node_property(@account,'versionHistory','int64[]')"));
-                tt.run(("create().node_property(@account,'name','string')"));
-
-
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().node_schema(@loan)"));
-                tt.run(("create().node_schema('loan')"));
-                tt.run(("create().node_property(@loan,'loanAmount','int64')"));
-                tt.run(("create().node_property(@loan,'balance','int64')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().node_schema(@medium)"));
-                tt.run(("create().node_schema('medium')"));
-                tt.run(("create().node_property(@medium,'name','string')"));
-                tt.run(("create().node_property(@medium,'isBlocked','int32')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().edge_schema(@transfer)"));
-                tt.run(("create().edge_schema('transfer')"));
-                tt.run(("create().edge_property(@transfer,'timestamp','datetime')"));
-                tt.run(("create().edge_property(@transfer,'amount','int64')"));
-                tt.run(("create().edge_property(@transfer,'type','string')"));
-                tt.run(("create().edge_property(@transfer,'versionHistory','int64[]')"));
-
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-            try {
-                tt.run(("drop().edge_schema(@withdraw)"));
-                tt.run(("create().edge_schema('withdraw')"));
-                tt.run(("create().edge_property(@withdraw,'timestamp','datetime')"));
-                tt.run(("create().edge_property(@withdraw,'amount','int64')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
-
-
-            try {
-                tt.run(("drop().edge_schema(@repay)"));
-                tt.run(("create().edge_schema('repay')"));
-                tt.run(("create().edge_property(@repay,'timestamp','datetime')"));
-                tt.run(("create().edge_property(@repay,'amount','int64')"));
-            } catch (Exception e) {
-                catchException(e);
+        final boolean rebuild = REBUILD_SCHEMA || !session.hasSchema(UltipaSchema.FINBENCH);
+        final List<String> uqls = new ArrayList<>();
+        if (rebuild) {
+            uqls.addAll(UltipaSchema.FINBENCH.statements());
+        }
+        uqls.add("delete().nodes()");
+
+        // dropping a schema that does not exist yet fails, the remaining statements are run anyway
+        final List<UltipaResultSet> results = new UltipaConnection(session)
+                .runBatch(uqls, false, UltipaConnection.STATUS_ONLY);
+        // the schema counts as applied only if every statement but the drops succeeded, otherwise the next nuke
+        // rebuilds it
+        final List<String> failed = new ArrayList<>();
+        for (int i = 0; i < uqls.size(); i++) {
+            if (i >= results.size()) {
+                failed.add(uqls.get(i) + ": not run");
+            } else if (!UltipaSchema.isDrop(uqls.get(i)) && !results.get(i).isOk()) {
+                failed.add(uqls.get(i) + ": " + results.get(i));
             }
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("the nuke of the database failed:\n" + String.join("\n", failed));
+        }
+        if (rebuild) {
+            session.setSchema(UltipaSchema.FINBENCH);
+        }
+    }
 
-            try {
-                tt.run(("drop().edge_schema(@deposit)"));
-                tt.run(("create().edge_schema('deposit')"));
-                tt.run(("create().edge_property(@deposit,'timestamp','datetime')"));
-                tt.run(("create().edge_property(@deposit,'amount','int64')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
+    @Override
+    public boolean supportsNamespaces() {
+        return true;
+    }
 
-            try {
-                tt.run(("drop().edge_schema(@signIn)"));
-                tt.run(("create().edge_schema('signIn')"));
-                tt.run(("create().edge_property(@signIn,'timestamp','datetime')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
+    @Override
+    public void nukeNamespace() {
+        // the schema is created together with the first nuke of the database
+        if (!session.hasSchema(UltipaSchema.FINBENCH)) {
+            nukeDatabase();
+            return;
+        }
+        // deleting a node deletes its edges; every node of the scenarios and of the workload has an id in the
+        // namespace
+        runBatch(ImmutableList.of(format("delete().nodes({_id >= $minId && _id <= $maxId})", namespaceRange())));
+    }
 
-            try {
-                tt.run(("drop().edge_schema(@apply)"));
-                tt.run(("create().edge_schema('apply')"));
-                tt.run(("create().edge_property(@apply,'timestamp','datetime')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
+    protected Map<String, Object> namespaceRange() {
+        return ImmutableMap.of("minId", idBase, "maxId", idBase + NAMESPACE_SIZE - 1);
+    }
 
-            try {
-                tt.run(("drop().edge_schema(@guarantee)"));
-                tt.run(("create().edge_schema('guarantee')"));
-                tt.run(("create().edge_property(@guarantee,'timestamp','datetime')"));
-            } catch (Exception e) {
-                catchException(e);
-            }
+    protected Map<String, Object> single(long accountId) {
+        return ImmutableMap.of("accountId", id(accountId));
+    }
 
-            final UltipaResultSet response = tt.run("delete().nodes()");
-            assertSuccess(response);
-            commitTransaction(tt);
-        } finally {
-            tt.close();
-        }
+    protected Map<String, Object> pair(long account1Id, long account2Id) {
+        return ImmutableMap.of("account1Id", id(account1Id), "account2Id", id(account2Id));
+    }
 
+    // the accounts of the 4-cycle used by OTV and FR
+    protected Map<String, Object> cycle() {
+        return ImmutableMap.of("account1Id", id(1), "account2Id", id(2), "account3Id", id(3), "account4Id", id(4));
     }
 
     @Override
@@ -238,8 +220,8 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
         final UltipaConnection tt = startTransaction();
         try {
-            final UltipaResultSet response = tt.run("insert().into(@account).nodes([{_id: 1, name: 'AliceAcc',transHistory:[100]},\n" +
-                    " {_id:2, name:'BobAcc',transHistory:[50, 150]}]) as nodes return nodes._uuid");
+            final UltipaResultSet response = tt.run("insert().into(@account).nodes([{_id: $account1Id, name: 'AliceAcc',transHistory:[100]},\n" +
+                    " {_id:$account2Id, name:'BobAcc',transHistory:[50, 150]}]) as nodes return nodes._uuid", pair(1, 2), UltipaConnection.STATUS_ONLY);
             assertSuccess(response);
             commitTransaction(tt);
         } finally {
@@ -285,7 +267,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             ;
             {
                 String cypher = "MATCH (a2:Account {id: $account2Id}) RETURN a2";
-                final UltipaResultSet result = tt.run("find().nodes({@account && _id == $account2Id}) as a2 return a2", parameters);
+                final UltipaResultSet result = tt.run("find().nodes({@account && _id == $account2Id}) as a2 return a2", parameters, "a2");
                 assertSuccess(result);
 
                 if (!result.isEmpty("a2")) {
@@ -318,7 +300,8 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             }
 
             UltipaResultSet result = tt.run("find().nodes({@account}) as a " +
-                    "RETURN count(a) AS numAccounts, count(a.name) AS numNames, sum(size(a.transHistory)) AS numTransferred");
+                    "RETURN count(a) AS numAccounts, count(a.name) AS numNames, sum(size(a.transHistory)) AS numTransferred",
+                    ImmutableMap.of(), "numAccounts", "numNames", "numTransferred");
             assertSuccess(result);
 
             final long numAccounts = result.aliasAsLong("numAccounts");
@@ -332,14 +315,41 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
     }
 
+    @Override
+    public Map<String, Object> atomicityCheck(Map<String, Object> parameters) {
+        final UltipaConnection tt = startTransaction();
+
+        try {
+            {
+                String cypher = "MATCH (a:Account)\n"
+                        + "WHERE a.id >= $minId AND a.id <= $maxId\n"
+                        + "RETURN count(a) AS numAccounts, count(a.name) AS numNames, sum(size(a.transHistory)) AS numTransferred";
+            }
+
+            UltipaResultSet result = tt.run("find().nodes({@account && _id >= $minId && _id <= $maxId}) as a " +
+                    "RETURN count(a) AS numAccounts, count(a.name) AS numNames, sum(size(a.transHistory)) AS numTransferred",
+                    parameters, "numAccounts", "numNames", "numTransferred");
+            assertSuccess(result);
+
+            final long numAccounts = result.aliasAsLong("numAccounts");
+            final long numNames = result.aliasAsLong("numNames");
+            final long numTransferred = result.aliasAsLong("numTransferred");
+
+            return ImmutableMap.of("numAccounts", numAccounts, "numNames", numNames, "numTransferred", numTransferred);
+        } finally {
+            tt.close();
+        }
+    }
+
     @Override
     public void g0Init() {
         final UltipaConnection tt = startTransaction();
         try {
             String cypher = "CREATE (:Account {id: 1, versionHistory: [0]})-[:transfer {versionHistory: [0]}]->(:Account {id: 2, versionHistory: [0]})";
-            UltipaResultSet result = tt.run(("insert().into(@account).nodes([{_id:1,versionHistory:[0]},{_id:2,versionHistory:[0]}])"));
+            UltipaResultSet result = tt.run("insert().into(@account).nodes([{_id:$account1Id,versionHistory:[0]},{_id:$account2Id,versionHistory:[0]}])",
+                    pair(1, 2));
             assertSuccess(result);
-            result = tt.run(("insert().into(@transfer).edges([{_from:1,_to:2,versionHistory:[0]}])"));
+            result = tt.run("insert().into(@transfer).edges([{_from:$account1Id,_to:$account2Id,versionHistory:[0]}])", pair(1, 2));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -349,28 +359,21 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
     @Override
     public Map<String, Object> g0(Map<String, Object> parameters) {
-        final UltipaConnection tt = startTransaction();
-        try {
-            String cypher = "MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
-                    + "SET a1.versionHistory = a1.versionHistory + [$transactionId]\n"
-                    + "SET a2.versionHistory = a2.versionHistory + [$transactionId]\n"
-                    + "SET t.versionHistory  = t.versionHistory  + [$transactionId]";
+        String cypher = "MATCH (a1:Account {id: $account1Id})-[t:transfer]->(a2:Account {id: $account2Id})\n"
+                + "SET a1.versionHistory = a1.versionHistory + [$transactionId]\n"
+                + "SET a2.versionHistory = a2.versionHistory + [$transactionId]\n"
+                + "SET t.versionHistory  = t.versionHistory  + [$transactionId]";
 
 
-            String uql = format("n({@account && _id == $account1Id} as a1).e({@transfer} as t).n({@account && _id == $account2Id} as a2) " +
-                    " with t " +
-                    "update().nodes({_uuid == a1._uuid || _uuid == a2._uuid }).set({versionHistory:append(this.versionHistory,$transactionId)}) as nodes " +
+        String uql = format("n({@account && _id == $account1Id} as a1).e({@transfer} as t).n({@account && _id == $account2Id} as a2) " +
+                " with t " +
+                "update().nodes({_uuid == a1._uuid || _uuid == a2._uuid }).set({versionHistory:append(this.versionHistory,$transactionId)}) as nodes " +
 
-                    "update().edges({_uuid == t._uuid}).set({versionHistory:append(this.versionHistory,$transactionId)}) as edges return nodes,edges", parameters);
+                "update().edges({_uuid == t._uuid}).set({versionHistory:append(this.versionHistory,$transactionId)}) as edges return nodes,edges", parameters);
 
-            UltipaResultSet result = tt.run(uql);
-            assertSuccess(result);
-            commitTransaction(tt);
+        runBatch(ImmutableList.of(uql));
 
-            return ImmutableMap.of();
-        } finally {
-            tt.close();
-        }
+        return ImmutableMap.of();
     }
 
     @Override
@@ -389,12 +392,13 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                     + "  a1.versionHistory AS a1VersionHistory,\n"
                     + "  t.versionHistory  AS tVersionHistory,\n"
                     + "  a2.versionHistory AS a2VersionHistory", parameters);
-            UltipaResultSet result = tt.run(uql);
+            UltipaResultSet result = tt.run(uql, ImmutableMap.of(),
+                    "a1VersionHistory", "tVersionHistory", "a2VersionHistory");
             assertSuccess(result);
 
-            final List a1VersionHistory = result.aliasAsList("a1VersionHistory", Collections.emptyList(), List.class).get(0);
-            final List tVersionHistory = result.aliasAsList("tVersionHistory", Collections.emptyList(), List.class).get(0);
-            final List a2VersionHistory = result.aliasAsList("a2VersionHistory", Collections.emptyList(), List.class).get(0);
+            final List<Long> a1VersionHistory = Longs.asList(result.aliasListAsLongArray("a1VersionHistory"));
+            final List<Long> tVersionHistory = Longs.asList(result.aliasListAsLongArray("tVersionHistory"));
+            final List<Long> a2VersionHistory = Longs.asList(result.aliasListAsLongArray("a2VersionHistory"));
 
             return ImmutableMap.of("a1VersionHistory", a1VersionHistory, "tVersionHistory", tVersionHistory,
                     "a2VersionHistory", a2VersionHistory);
@@ -409,7 +413,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1, balance:99}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$accountId, balance:99}])", single(1));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -428,16 +432,18 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                 String cypher = "MATCH (a:Account {id: $accountId})\n"
                         + "RETURN ID(a) AS internalAId";
 
-                result = tt.run(format("find().nodes({@account && _id == $accountId}) as nodes return nodes._id as internalAId", parameters));
+                result = tt.run(format("find().nodes({@account && _id == $accountId}) as nodes return nodes._id as internalAId", parameters),
+                        ImmutableMap.of(), "internalAId");
                 assertSuccess(result);
             }
-            List<String> internalAIdList = (result.aliasAsList("internalAId", Collections.emptyList(), String.class));
+            // the gateway may send the id as a string, it is rendered as a number like the ids of the other queries
+            List<Long> internalAIdList = (result.aliasAsList("internalAId", Collections.emptyList(), Long.class));
             if (internalAIdList.isEmpty()) {
                 throw new IllegalStateException("G1a1 Result empty");
             }
-            final Object internalAId = internalAIdList.get(0);
+            final long internalAId = internalAIdList.get(0);
 
-            sleep((Long) parameters.get("sleepTime"));
+            delay((Long) parameters.get("sleepTime"));
 
             {
                 String cypher = "MATCH (a:Account)\n"
@@ -449,13 +455,10 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             }
 
 
-            sleep((Long) parameters.get("sleepTime"));
+            interleave((Long) parameters.get("sleepTime"));
 
             abortTransaction(tt);
             return ImmutableMap.of();
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -470,19 +473,17 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
             UltipaResultSet result;
 
-            result = tt.run("find().nodes({@account && _id == $accountId}) as a return a.balance AS aBalance", parameters);
+            result = tt.run("find().nodes({@account && _id == $accountId}) as a return a.balance AS aBalance", parameters,
+                    "aBalance");
             assertSuccess(result);
 
-            List<Long> aBalanceList = result.aliasAsList("aBalance", Collections.emptyList(), Long.class);
+            final long[] aBalanceValues = result.aliasAsLongArray("aBalance");
 
-            if (aBalanceList.isEmpty()) {
+            if (aBalanceValues.length == 0) {
                 throw new IllegalStateException("G1a T2 Result empty");
             }
-            final long aBalance = (long) Double.parseDouble(aBalanceList.get(0).toString());
+            final long aBalance = aBalanceValues[0];
             return ImmutableMap.of("aBalance", aBalance);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -496,7 +497,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         final UltipaConnection tt = startTransaction();
 
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1, balance:99}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$accountId, balance:99}])", single(1));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -534,19 +535,17 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             String cypher = "MATCH (a:Account {id: $accountId}) RETURN a.balance AS aBalance";
 
             UltipaResultSet result;
-            result = tt.run(format("find().nodes({@account && _id == $accountId}) as a return a.balance AS aBalance", parameters));
+            result = tt.run(format("find().nodes({@account && _id == $accountId}) as a return a.balance AS aBalance", parameters),
+                    ImmutableMap.of(), "aBalance");
             assertSuccess(result);
 
-            List<Long> aBalanceList = result.aliasAsList("aBalance", Collections.emptyList(), Long.class);
+            final long[] aBalanceValues = result.aliasAsLongArray("aBalance");
 
-            if (aBalanceList.isEmpty()) {
+            if (aBalanceValues.length == 0) {
                 throw new IllegalStateException("G1b T2 Result empty");
             }
-            final long aBalance = (long) Double.parseDouble(aBalanceList.get(0).toString());
+            final long aBalance = aBalanceValues[0];
             return ImmutableMap.of("aBalance", aBalance);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -559,7 +558,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1, balance:0},{_id:2, balance:0}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$account1Id, balance:0},{_id:$account2Id, balance:0}])", pair(1, 2));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -579,7 +578,8 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
             UltipaResultSet result = tt.run(format("update().nodes({@account && _id == $account1Id}).set({balance:$transactionId}) as nodes " +
                     "with count(nodes) as dummy " +
-                    "find().nodes({@account && _id == $account2Id}) as a2 return a2.balance AS account2Balance", parameters));
+                    "find().nodes({@account && _id == $account2Id}) as a2 return a2.balance AS account2Balance", parameters),
+                    ImmutableMap.of(), "account2Balance");
             assertSuccess(result);
             final long account2Balance = (result.aliasAsLong("account2Balance"));
             commitTransaction(tt);
@@ -598,7 +598,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1, balance:1}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$accountId, balance:1}])", single(1));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -608,17 +608,9 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
     @Override
     public Map<String, Object> impW(Map<String, Object> parameters) {
-        final UltipaConnection tt = startTransaction();
         String cypher = "MATCH (a:Account {id: $accountId}) SET a.balance = a.balance + 1 RETURN a";
-        UltipaResultSet result;
-        try {
-            result = tt.run(format("update().nodes({@account && _id==$accountId}).set({balance:this.balance + 1 })", parameters));
-            assertSuccess(result);
-            commitTransaction(tt);
-            return ImmutableMap.of();
-        } finally {
-            tt.close();
-        }
+        runBatch(ImmutableList.of(format("update().nodes({@account && _id==$accountId}).set({balance:this.balance + 1 })", parameters)));
+        return ImmutableMap.of();
     }
 
     @Override
@@ -630,35 +622,34 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                 String cypher = "MATCH (a:Account {id: $accountId}) RETURN a.balance AS firstRead";
             }
             final UltipaResultSet result1 =
-                    tt.run(format("find().nodes({@account &&  _id == $accountId}) as a RETURN a.balance AS firstRead", parameters));
+                    tt.run(format("find().nodes({@account &&  _id == $accountId}) as a RETURN a.balance AS firstRead", parameters),
+                            ImmutableMap.of(), "firstRead");
             assertSuccess(result1);
 
-            List<Long> firstReadList = result1.aliasAsList("firstRead", Collections.emptyList(), Long.class);
-            if (firstReadList.isEmpty()) {
+            final long[] firstReadValues = result1.aliasAsLongArray("firstRead");
+            if (firstReadValues.length == 0) {
                 throw new IllegalStateException("IMP result1 empty");
             }
-            final long firstRead = (long) Double.parseDouble(firstReadList.get(0).toString());
+            final long firstRead = firstReadValues[0];
 
-            sleep((Long) parameters.get("sleepTime"));
+            interleave((Long) parameters.get("sleepTime"));
 
             {
                 String cypher = "MATCH (a:Account {id: $accountId}) RETURN a.balance AS secondRead";
             }
             final UltipaResultSet result2 =
-                    tt.run(format("find().nodes({@account && _id == $accountId}) as a  RETURN a.balance AS secondRead", parameters));
+                    tt.run(format("find().nodes({@account && _id == $accountId}) as a  RETURN a.balance AS secondRead", parameters),
+                            ImmutableMap.of(), "secondRead");
             assertSuccess(result2);
 
-            List<Long> secondReadList = result2.aliasAsList("secondRead", Collections.emptyList(), Long.class);
+            final long[] secondReadValues = result2.aliasAsLongArray("secondRead");
 
-            if (secondReadList.isEmpty()) {
+            if (secondReadValues.length == 0) {
                 throw new IllegalStateException("IMP result2 empty");
             }
-            final long secondRead = (long) Double.parseDouble(secondReadList.get(0).toString());
+            final long secondRead = secondReadValues[0];
 
             return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -673,7 +664,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1},{_id:2}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$account1Id},{_id:$account2Id}])", pair(1, 2));
             assertSuccess(result);
             commitTransaction(tt);
         } finally {
@@ -708,19 +699,19 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             }
             final UltipaResultSet result1 =
                     tt.run(format("n({@account && _id == $account2Id} as a2).le({@transfer}).n({@account} as a1) " +
-                            "RETURN count(a1) AS firstRead", parameters));
+                            "RETURN count(a1) AS firstRead", parameters), ImmutableMap.of(), "firstRead");
             assertSuccess(result1);
 
-            List<Long> firstReadList = result1.aliasAsList("firstRead", Collections.emptyList(), Long.class);
+            final long[] firstReadValues = result1.aliasAsLongArray("firstRead");
 
 
-            if (firstReadList.isEmpty()) {
+            if (firstReadValues.length == 0) {
                 throw new IllegalStateException("PMP result1 empty");
             }
 
-            final long firstRead = (long) Double.parseDouble(firstReadList.get(0).toString());
+            final long firstRead = firstReadValues[0];
 
-            sleep((Long) parameters.get("sleepTime"));
+            interleave((Long) parameters.get("sleepTime"));
 
             {
                 String cypher = "MATCH (a2:Account {id: $account2Id})<-[:transfer]-(a3:Account) RETURN count(a3) AS secondRead";
@@ -728,19 +719,16 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
             final UltipaResultSet result2 =
                     tt.run(format("n({@account && _id == $account2Id} as a2).le({@transfer}).n({@account} as a3) RETURN count(a3) AS secondRead",
-                            parameters));
+                            parameters), ImmutableMap.of(), "secondRead");
             assertSuccess(result2);
 
-            final List<Long> secondReadList = result2.aliasAsList("secondRead", Collections.emptyList(), Long.class);
-            if (secondReadList.isEmpty()) {
+            final long[] secondReadValues = result2.aliasAsLongArray("secondRead");
+            if (secondReadValues.length == 0) {
                 throw new IllegalStateException("PMP result2 empty");
             }
-            final long secondRead = Long.parseLong(secondReadList.get(0).toString());
+            final long secondRead = secondReadValues[0];
 
             return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -755,10 +743,12 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1,balance:0},{_id:2,balance:0},{_id:3,balance:0},{_id:4,balance:0}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$account1Id,balance:0},{_id:$account2Id,balance:0},{_id:$account3Id,balance:0},{_id:$account4Id,balance:0}])",
+                    cycle());
             assertSuccess(result);
 
-            result = tt.run("insert().into(@transfer).edges([{_from:1,_to:2},{_from:2,_to:3},{_from:3,_to:4},{_from:4,_to:1}])");
+            result = tt.run("insert().into(@transfer).edges([{_from:$account1Id,_to:$account2Id},{_from:$account2Id,_to:$account3Id},{_from:$account3Id,_to:$account4Id},{_from:$account4Id,_to:$account1Id}])",
+                    cycle());
             assertSuccess(result);
 
             commitTransaction(tt);
@@ -774,7 +764,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         for (int i = 0; i < 100; i++) {
             UltipaResultSet result;
 
-            long accountId = random.nextInt((int) parameters.get("cycleSize") + 1);
+            long accountId = id(random.nextInt((int) parameters.get("cycleSize") + 1));
 
             final UltipaConnection tt = startTransaction();
             try {
@@ -794,7 +784,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
                         ImmutableMap.of("accountId", accountId));
 
-                result = tt.run(uql);
+                result = tt.run(uql, ImmutableMap.of(), UltipaConnection.STATUS_ONLY);
                 assertSuccess(result);
 
                 commitTransaction(tt);
@@ -817,15 +807,15 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             String uql = "n({@account && _id == $accountId} as a1).re({@transfer}).n(as a2).re({@transfer}).n(as a3).re({@transfer}).n(as a4).re({@transfer}).n(as p1) "
                     + "RETURN a1.balance as a1_balance, a2.balance as a2_balance, a3.balance as a3_balance, a4.balance as a4_balance";
 
-            final UltipaResultSet result1 = tt.run(format(uql, parameters));
+            final UltipaResultSet result1 = tt.run(format(uql, parameters), ImmutableMap.of(), "a1_balance");
             assertSuccess(result1);
 
-            final List<Long> firstRead = result1.aliasAsList("a1_balance", Collections.emptyList(), Long.class);
+            final List<Long> firstRead = Longs.asList(result1.aliasAsLongArray("a1_balance"));
             if (firstRead.isEmpty()) {
                 throw new IllegalStateException("OTV2 result1 empty");
             }
 
-            sleep((Long) parameters.get("sleepTime"));
+            interleave((Long) parameters.get("sleepTime"));
 
             {
                 String cypher = "MATCH (a1:Account {id: $accountId})-[:transfer]->(a2)-[:transfer]->(a3)-[:transfer]->(a4)-[:transfer]->(a1)\n"
@@ -833,17 +823,14 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             }
             final UltipaResultSet result2 = tt.run(format("n({@account && _id == $accountId} as a1).re({@transfer}).n(as a2).re({@transfer}).n(as a3).re({@transfer}).n(as a4).re({@transfer}).n(a1) "
                             + "RETURN a1.balance as a1_balance, a2.balance as a2_balance, a3.balance as a3_balance, a4.balance as a4_balance",
-                    parameters));
+                    parameters), ImmutableMap.of(), "a1_balance");
             assertSuccess(result2);
 
-            final List<Long> secondRead = result2.aliasAsList("a1_balance", Collections.emptyList(), Long.class);
+            final List<Long> secondRead = Longs.asList(result2.aliasAsLongArray("a1_balance"));
             if (secondRead.isEmpty()) {
                 throw new IllegalStateException("OTV2 result2 empty");
             }
             return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -859,9 +846,11 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         UltipaResultSet result;
         final UltipaConnection tt = startTransaction();
         try {
-            result = tt.run("insert().into(@account).nodes([{_id:1,balance:0},{_id:2,balance:0},{_id:3,balance:0},{_id:4,balance:0}])");
+            result = tt.run("insert().into(@account).nodes([{_id:$account1Id,balance:0},{_id:$account2Id,balance:0},{_id:$account3Id,balance:0},{_id:$account4Id,balance:0}])",
+                    cycle());
             assertSuccess(result);
-            result = tt.run("insert().into(@transfer).edges([{_from:1,_to:2},{_from:2,_to:3},{_from:3,_to:4},{_from:4,_to:1}])");
+            result = tt.run("insert().into(@transfer).edges([{_from:$account1Id,_to:$account2Id},{_from:$account2Id,_to:$account3Id},{_from:$account3Id,_to:$account4Id},{_from:$account4Id,_to:$account1Id}])",
+                    cycle());
             assertSuccess(result);
 
             commitTransaction(tt);
@@ -891,7 +880,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                             "\n" +
                             "update().nodes({_id == a4._id}).set({balance: a4.balance + 1})  as n4 return n1,n2,n3,n4"
                     , parameters);
-            result = tt.run(uql);
+            result = tt.run(uql, ImmutableMap.of(), UltipaConnection.STATUS_ONLY);
             assertSuccess(result);
 
             commitTransaction(tt);
@@ -917,7 +906,8 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
             String uql = format("n({@account && _id == $accountId} as a1).re({@transfer}).n(as a2).re({@transfer}).n(as a3).re({@transfer}).n(as a4).re({@transfer}).n(a1) "
                     + "RETURN a1.balance as a1_balance, a2.balance as a2_balance, a3.balance as a3_balance, a4.balance as a4_balance", parameters);
-            final UltipaResultSet result1 = tt.run(uql);
+            final UltipaResultSet result1 = tt.run(uql, ImmutableMap.of(),
+                    "a1_balance", "a2_balance", "a3_balance", "a4_balance");
             assertSuccess(result1);
 
             List<Object> firstRead = Collections.emptyList();
@@ -932,7 +922,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                 throw new IllegalStateException("FR2 result1 empty");
             }
 
-            sleep((Long) parameters.get("sleepTime"));
+            interleave((Long) parameters.get("sleepTime"));
             {
                 String cypher = "MATCH (a1:Account {id: $accountId})-[:transfer]->(a2)-[:transfer]->(a3)-[:transfer]->(a4)-[:transfer]->(a1)\n"
                         + "RETURN [a1.balance, a2.balance, a3.balance, a4.balance] AS secondRead";
@@ -940,15 +930,16 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
 
             final UltipaResultSet result2 = tt.run("n({@account && _id == $accountId} as a1).re({@transfer}).n(as a2).re({@transfer}).n(as a3).re({@transfer}).n(as a4).re({@transfer}).n({this._uuid == a1._uuid}) "
-                    + "RETURN a1.balance as a1_balance, a2.balance as a2_balance, a3.balance as a3_balance, a4.balance as a4_balance", parameters);
+                    + "RETURN a1.balance as a1_balance, a2.balance as a2_balance, a3.balance as a3_balance, a4.balance as a4_balance", parameters,
+                    "a1_balance", "a2_balance", "a3_balance", "a4_balance");
             assertSuccess(result2);
 
             List<Object> secondRead = Collections.emptyList();
             if (result2.count() > 0) {
-                secondRead = ImmutableList.of(result1.aliasAsLong("a1_balance"),
-                        result1.aliasAsLong("a2_balance"),
-                        result1.aliasAsLong("a3_balance"),
-                        result1.aliasAsLong("a4_balance")
+                secondRead = ImmutableList.of(result2.aliasAsLong("a1_balance"),
+                        result2.aliasAsLong("a2_balance"),
+                        result2.aliasAsLong("a3_balance"),
+                        result2.aliasAsLong("a4_balance")
                 );
             }
             if (secondRead.isEmpty()) {
@@ -956,9 +947,6 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
             }
 
             return ImmutableMap.of("firstRead", firstRead, "secondRead", secondRead);
-        } catch (IllegalStateException e) {
-            tt.close();
-            throw e;
         } finally {
             tt.close();
         }
@@ -971,7 +959,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         final UltipaConnection tt = startTransaction();
         try {
             String cypher = "CREATE (:Account {id: 1, numTransferred: 0})";
-            UltipaResultSet result1 = tt.run(("insert().into(@account).nodes([{_id: 1,numTransferred:0}])"));
+            UltipaResultSet result1 = tt.run("insert().into(@account).nodes([{_id: $accountId,numTransferred:0}])", single(1));
             assertSuccess(result1);
             commitTransaction(tt);
         } finally {
@@ -981,21 +969,15 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
     @Override
     public Map<String, Object> luW(Map<String, Object> parameters) {
-        final UltipaConnection tt = startTransaction();
-        try {
-            UltipaResultSet result1;
-            String cypher = "MATCH (a1:Account {id: 1})\n"
-                    + "CREATE (a1)-[:transfer]->(a2)\n"
-                    + "SET a1.numTransferred = a1.numTransferred + 1\n"
-                    + "RETURN a1.numTransferred\n";
-            String uql = "find().nodes({_id == 1}) as a1 insert().into(@account).nodes({}) as a2 insert().into(@transfer).edges([{_from:a1._id,_to:a2._id}]) as e1 with e1 update().nodes({_id == 1}).set({numTransferred:a1.numTransferred + 1}) as un return un.numTransferred,e1";
-            result1 = tt.run(uql);
-            assertSuccess(result1);
-            commitTransaction(tt);
-            return ImmutableMap.of();
-        } finally {
-            tt.close();
-        }
+        String cypher = "MATCH (a1:Account {id: $account1Id})\n"
+                + "CREATE (a1)-[:transfer]->(a2)\n"
+                + "SET a1.numTransferred = a1.numTransferred + 1\n"
+                + "RETURN a1.numTransferred\n";
+        // the target gets the id account2Id of the namespace, so that nukeNamespace removes it
+        String uql = format("find().nodes({_id == $account1Id}) as a1 insert().into(@account).nodes({_id: $account2Id}) as a2 insert().into(@transfer).edges([{_from:a1._id,_to:a2._id}]) as e1 with e1 update().nodes({_id == $account1Id}).set({numTransferred:a1.numTransferred + 1}) as un return un.numTransferred,e1",
+                parameters);
+        runBatch(ImmutableList.of(uql));
+        return ImmutableMap.of();
     }
 
     @Override
@@ -1013,7 +995,7 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                     + "WITH a, count(t) AS numTransferEdges\n"
                     + "RETURN numTransferEdges,\n"
                     + "       a.numTransferred AS numTransferProp\n", parameters);
-            final UltipaResultSet result = tt.run(uql);
+            final UltipaResultSet result = tt.run(uql, ImmutableMap.of(), "numTransferEdges", "numTransferProp");
             assertSuccess(result);
             long numTransferEdges = result.aliasAsLong("numTransferEdges");
             long numTransferProp = result.aliasAsLong("numTransferProp");
@@ -1029,11 +1011,15 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         final UltipaConnection tt = startTransaction();
         try {
             // create 10 pairs of accounts with indices (1,2), ..., (19,20)
+            // the inserts are independent, so they are pipelined instead of waiting for each response
+            final List<CompletableFuture<UltipaResultSet>> results = new ArrayList<>();
             for (int i = 1; i <= 10; i++) {
                 String cypher = "CREATE (:Account {id: $account1Id, balance: 70}), (:Account {id: $account2Id, balance: 80})";
-                UltipaResultSet result1 = tt.run(format("insert().into(@account).nodes([{_id: $account1Id,balance:70},{_id:$account2Id,balance:80}])",
-                        ImmutableMap.of("account1Id", 2 * i - 1, "account2Id", 2 * i)));
-                assertSuccess(result1);
+                results.add(tt.runAsync("insert().into(@account).nodes([{_id: $account1Id,balance:70},{_id:$account2Id,balance:80}])",
+                        pair(2 * i - 1, 2 * i), UltipaConnection.STATUS_ONLY));
+            }
+            for (CompletableFuture<UltipaResultSet> result1 : results) {
+                assertSuccess(result1.join());
             }
 
             commitTransaction(tt);
@@ -1059,11 +1045,11 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
                             "find().nodes({@account && _id == $account2Id}) as a2 " +
                             "with a1,a2 where (a1.balance + a2.balance) >= 100" +
                             "return a1,a2"
-                    , parameters));
+                    , parameters), ImmutableMap.of(), "a1");
             assertSuccess(result);
 
             if (result.count() > 0) {
-                sleep((Long) parameters.get("sleepTime"));
+                interleave((Long) parameters.get("sleepTime"));
 
                 long accountId = new Random().nextBoolean()
                         ? (long) parameters.get("account1Id") :
@@ -1091,14 +1077,16 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
 
         try {
             String cypher = "MATCH (a1:Account), (a2:Account {id: a1.id+1})\n"
-                    + "WHERE a1.balance + a2.balance <= 0 and a1.id % 2 = 1 \n"
+                    + "WHERE a1.id >= $minId AND a1.id <= $maxId\n"
+                    + "  AND a1.balance + a2.balance <= 0 and a1.id % 2 = 1 \n"
                     + "RETURN a1.id AS a1id, a1.balance AS a1balance, a2.id AS a2id, a2.balance AS a2balance";
             final UltipaResultSet result = tt.run((
-                    "find().nodes({@account}) as a1 " +
-                            "find().nodes({@account && this._id == (a1.id + 1)}) as a2 " +
+                    "find().nodes({@account && _id >= $minId && _id <= $maxId}) as a1 " +
+                            "find().nodes({@account && this._id == (a1._id + 1)}) as a2 " +
                             "with a1,a2 " +
-                            "where (a1.balance + a2.balance) <= 0 and (a1.id % 2) == 1 " +
-                            "RETURN a1.id AS a1id, a1.balance AS a1balance, a2.id AS a2id, a2.balance AS a2balance"));
+                            "where (a1.balance + a2.balance) <= 0 and (a1._id % 2) == 1 " +
+                            "RETURN a1._id AS a1id, a1.balance AS a1balance, a2._id AS a2id, a2.balance AS a2balance"),
+                    namespaceRange(), "a1id", "a1balance", "a2id", "a2balance");
             assertSuccess(result);
 
             if (result.count() > 0) {
@@ -1115,4 +1103,116 @@ public class UltipaDriver extends TestDriver<UltipaConnection, Map<String, Objec
         }
     }
 
+    // Background workload
+
+    // the datetime properties of the schema take 'yyyy-MM-dd HH:mm:ss'
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+
+    private static Map<String, Object> withDatetime(Map<String, Object> parameters) {
+        final Map<String, Object> result = new HashMap<>(parameters);
+        final long timestamp = ((Number) parameters.get("timestamp")).longValue();
+        result.put("timestamp", DATETIME.format(Instant.ofEpochMilli(timestamp)));
+        return result;
+    }
+
+    @Override
+    public void workloadInit(Map<String, Object> parameters) {
+        final long numAccounts = ((Number) parameters.get("numAccounts")).longValue();
+        final long numLoans = ((Number) parameters.get("numLoans")).longValue();
+        final List<String> uqls = new ArrayList<>();
+        // one insert per 1000 nodes keeps the statements small
+        for (long first = 0; first < numAccounts + numLoans; first += 1000) {
+            final List<Map<String, Object>> accounts = new ArrayList<>();
+            final List<Map<String, Object>> loans = new ArrayList<>();
+            for (long i = first; i < Math.min(first + 1000, numAccounts + numLoans); i++) {
+                if (i < numAccounts) {
+                    accounts.add(ImmutableMap.of("_id", id(i), "balance", parameters.get("balance")));
+                } else {
+                    loans.add(ImmutableMap.of("_id", id(i), "loanAmount", parameters.get("loanAmount"),
+                            "balance", parameters.get("loanAmount")));
+                }
+            }
+            if (!accounts.isEmpty()) {
+                uqls.add(format("insert().into(@account).nodes($nodes)", ImmutableMap.of("nodes", accounts)));
+            }
+            if (!loans.isEmpty()) {
+                uqls.add(format("insert().into(@loan).nodes($nodes)", ImmutableMap.of("nodes", loans)));
+            }
+        }
+        runBatch(uqls);
+    }
+
+    // Moves the amount from the balance of the source to that of the target and records it as an edge.
+    private void move(String source, String sourceId, String target, String targetId, String edge,
+                      Map<String, Object> parameters) {
+        runBatch(ImmutableList.of(format("update().nodes({@" + source + " && _id == $" + sourceId + "})"
+                + ".set({balance:this.balance - $amount}) as s "
+                + "update().nodes({@" + target + " && _id == $" + targetId + "})"
+                + ".set({balance:this.balance + $amount}) as t "
+                + "insert().into(@" + edge + ").edges([{_from:$" + sourceId + ",_to:$" + targetId
+                + ",amount:$amount,timestamp:$timestamp}]) as e return e", withDatetime(parameters))));
+    }
+
+    @Override
+    public void transfer(Map<String, Object> parameters) {
+        move("account", "account1Id", "account", "account2Id", "transfer", parameters);
+    }
+
+    @Override
+    public void deposit(Map<String, Object> parameters) {
+        move("loan", "loanId", "account", "accountId", "deposit", parameters);
+    }
+
+    @Override
+    public void withdraw(Map<String, Object> parameters) {
+        move("account", "account1Id", "account", "account2Id", "withdraw", parameters);
+    }
+
+    @Override
+    public void repay(Map<String, Object> parameters) {
+        move("account", "accountId", "loan", "loanId", "repay", parameters);
+    }
+
+    // Bulk loading
+
+    // The datetime properties of a generated graph are epoch millis and its flags are booleans, the schema has
+    // datetime and int32 properties.
+    private static Map<String, Object> toUql(Map<?, ?> properties) {
+        final Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<?, ?> entry : properties.entrySet()) {
+            final String key = entry.getKey().toString();
+            Object value = entry.getValue();
+            if (("timestamp".equals(key) || "createTime".equals(key)) && value instanceof Number) {
+                value = DATETIME.format(Instant.ofEpochMilli(((Number) value).longValue()));
+            } else if (value instanceof Boolean) {
+                value = (Boolean) value ? 1 : 0;
+            }
+            result.put("id".equals(key) ? "_id" : key, value);
+        }
+        return result;
+    }
+
+    @Override
+    public void bulkLoadNodes(String label, List<Map<String, Object>> nodes) {
+        final List<Map<String, Object>> rows = new ArrayList<>(nodes.size());
+        for (Map<String, Object> node : nodes) {
+            rows.add(toUql(node));
+        }
+        runBatch(ImmutableList.of(format("insert().into(@" + label.toLowerCase() + ").nodes($nodes)",
+                ImmutableMap.of("nodes", rows))));
+    }
+
+    @Override
+    public void bulkLoadEdges(String fromLabel, String type, String toLabel, List<Map<String, Object>> edges) {
+        final List<Map<String, Object>> rows = new ArrayList<>(edges.size());
+        for (Map<String, Object> edge : edges) {
+            final Map<String, Object> row = toUql((Map<?, ?>) edge.get("properties"));
+            row.put("_from", edge.get("fromId"));
+            row.put("_to", edge.get("toId"));
+            rows.add(row);
+        }
+        runBatch(ImmutableList.of(format("insert().into(@" + type + ").edges($edges)",
+                ImmutableMap.of("edges", rows))));
+    }
 }
@@ -38,28 +38,81 @@ public class UltipaResultSet {
         return count(dataItem) == 0;
     }
 
-    long aliasAsLong(String alias) {
+    // The values of the alias in the first entity, or null if there are none.
+    private List<Object> values(String alias) {
         DataItem dataItem = response.getItems().get(alias);
         if (dataItem == null) {
-            return 0;
+            return null;
         }
         List<Object> entities = dataItem.getEntities();
-        if (entities == null) {
+        if (entities == null || entities.isEmpty()) {
+            return null;
+        }
+        return (List<Object>) ((Map<String, Object>) entities.get(0)).get("values");
+    }
+
+    // Numbers are decoded by Gson as Double, some gateway versions send them as strings.
+    static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        final String text = value.toString();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return (long) Double.parseDouble(text);
+        }
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.parseDouble(value.toString());
+    }
+
+    private static long[] toLongArray(List<?> values) {
+        final long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toLong(values.get(i));
+        }
+        return array;
+    }
+
+    // the single value of the alias, 0 if there is none or more than one
+    long aliasAsLong(String alias) {
+        List<Object> values = values(alias);
+        if (values == null || values.size() != 1) {
             return 0;
         }
-        if (entities.size() == 1) {
-            Map<String, Object> map = (Map) entities.get(0);
-            List<Object> values = (List<Object>) map.get("values");
-            if (values != null) {
-                if (values.size() == 1) {
-                    Object value = values.get(0);
-                    return (long) Double.parseDouble(value.toString());
-                }
-            }
+        return toLong(values.get(0));
+    }
+
+    double aliasAsDouble(String alias) {
+        List<Object> values = values(alias);
+        if (values == null || values.size() != 1) {
+            return 0;
         }
-        return 0;
+        return toDouble(values.get(0));
+    }
+
+    // all values of the alias, one per returned row
+    long[] aliasAsLongArray(String alias) {
+        List<Object> values = values(alias);
+        if (values == null) {
+            return new long[0];
+        }
+        return toLongArray(values);
     }
 
+    // the first value of the alias, which is a list property such as versionHistory
+    long[] aliasListAsLongArray(String alias) {
+        List<Object> values = values(alias);
+        if (values == null || values.isEmpty() || !(values.get(0) instanceof List)) {
+            return new long[0];
+        }
+        return toLongArray((List<?>) values.get(0));
+    }
 
     <T>
     List<T> aliasAsList(String alias, List<T> defaultList, Class<T> clazz) {
@@ -81,7 +134,7 @@ public class UltipaResultSet {
                 }
                 for (Object v : values) {
                     if (clazz == Long.class) {
-                        resList.add(clazz.cast((long) Double.parseDouble(v.toString())));
+                        resList.add(clazz.cast(toLong(v)));
                         continue;
                     }
                     resList.add(clazz.cast(v));
@@ -0,0 +1,81 @@
+package ldbc.finbench.acid.ultipa;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Node and edge schemas with their properties, declared as data so that the statements that (re)create them can be
+// sent to the gateway in one batch.
+public final class UltipaSchema {
+
+    // the schema used by the ACID tests
+    public static final UltipaSchema FINBENCH = new UltipaSchema()
+            .node("person", "name", "string", "isBlocked", "int32")
+            .node("company", "name", "string", "isBlocked", "int32")
+            .node("account", "createTime", "datetime", "isBlocked", "int32", "type", "string",
+                    "transHistory", "int64[]", "balance", "int64", "numTransferred", "int64",
+                    "versionHistory", "int64[]", "name", "string")
+            .node("loan", "loanAmount", "int64", "balance", "int64")
+            .node("medium", "name", "string", "isBlocked", "int32")
+            .edge("transfer", "timestamp", "datetime", "amount", "int64", "type", "string",
+                    "versionHistory", "int64[]")
+            .edge("withdraw", "timestamp", "datetime", "amount", "int64")
+            .edge("repay", "timestamp", "datetime", "amount", "int64")
+            .edge("deposit", "timestamp", "datetime", "amount", "int64")
+            .edge("own", "timestamp", "datetime")
+            .edge("signIn", "timestamp", "datetime")
+            .edge("apply", "timestamp", "datetime")
+            .edge("guarantee", "timestamp", "datetime");
+
+    private final List<Schema> schemas = new ArrayList<>();
+
+    // properties are given as name, type pairs
+    public UltipaSchema node(String name, String... properties) {
+        schemas.add(new Schema("node", name, properties));
+        return this;
+    }
+
+    public UltipaSchema edge(String name, String... properties) {
+        schemas.add(new Schema("edge", name, properties));
+        return this;
+    }
+
+    // Drops and creates every schema with its properties. Dropping a schema that does not exist fails, so the
+    // statements have to be run without stopping at the first error.
+    public List<String> statements() {
+        final ImmutableList.Builder<String> statements = ImmutableList.builder();
+        for (Schema schema : schemas) {
+            statements.add(String.format("drop().%s_schema(@%s)", schema.kind, schema.name));
+            statements.add(String.format("create().%s_schema('%s')", schema.kind, schema.name));
+            for (Map.Entry<String, String> property : schema.properties.entrySet()) {
+                statements.add(String.format("create().%s_property(@%s,'%s','%s')", schema.kind, schema.name,
+                        property.getKey(), property.getValue()));
+            }
+        }
+        return statements.build();
+    }
+
+    // whether the statement is one of the drops, which fail if the schema does not exist yet
+    public static boolean isDrop(String statement) {
+        return statement.startsWith("drop().");
+    }
+
+    private static final class Schema {
+        private final String kind;
+        private final String name;
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        Schema(String kind, String name, String... properties) {
+            if (properties.length % 2 != 0) {
+                throw new IllegalArgumentException("properties of " + name + " are not name, type pairs");
+            }
+            this.kind = kind;
+            this.name = name;
+            for (int i = 0; i < properties.length; i += 2) {
+                this.properties.put(properties[i], properties[i + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ldbc.finbench.acid.ultipa;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+// Authenticated session on an Ultipa HTTP gateway. A session is shared by all connections to the same gateway
+// and database, so the /login round trip is paid once instead of once per transaction. The session logs in
+// again when the gateway rejects a request as unauthorized or after ultipa.session.ttlSeconds (if set).
+public class UltipaSession {
+
+    private static final ConcurrentMap<String, UltipaSession> SESSIONS = new ConcurrentHashMap<>();
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("ultipa.session.ttlSeconds", 0));
+
+    private final String httpServer;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+
+    // cleared when the gateway turns out to have no /transaction/batch endpoint
+    private volatile boolean batchSupported = Boolean.parseBoolean(System.getProperty("ultipa.batch", "true"));
+    // the schema statements this session applied to the gateway, data can be deleted without rebuilding it
+    private volatile List<String> appliedSchema;
+    private volatile boolean loggedIn = false;
+    private volatile long loggedInAt;
+    private volatile long logins = 0;
+
+    UltipaSession(String httpServer, String host, int port, String username, String password) {
+        Objects.requireNonNull(httpServer);
+        this.httpServer = httpServer.endsWith("/") ? httpServer.substring(0, httpServer.length() - 1) : httpServer;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static UltipaSession of(String httpServer, String host, int port, String username, String password) {
+        final String key = httpServer + "|" + host + ":" + port + "|" + username;
+        return SESSIONS.computeIfAbsent(key, k -> new UltipaSession(httpServer, host, port, username, password));
+    }
+
+    public String getHttpServer() {
+        return httpServer;
+    }
+
+    public boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    void setBatchSupported(boolean batchSupported) {
+        this.batchSupported = batchSupported;
+    }
+
+    public boolean hasSchema(UltipaSchema schema) {
+        return schema.statements().equals(appliedSchema);
+    }
+
+    void setSchema(UltipaSchema schema) {
+        this.appliedSchema = schema == null ? null : schema.statements();
+    }
+
+    // the number of /login requests sent for this session, it tells apart the logins of the session
+    public long getLogins() {
+        return logins;
+    }
+
+    // Logs in unless there is a valid session already.
+    public void ensureLoggedIn() throws IOException {
+        if (loggedIn && !expired()) {
+            return;
+        }
+        synchronized (this) {
+            if (loggedIn && !expired()) {
+                return;
+            }
+            login();
+        }
+    }
+
+    // Called when the gateway rejected a request because the session is no longer valid, with the number of logins
+    // when the request was sent. Requests rejected at the same time log in once: the later ones find that the session
+    // logged in again since they were sent.
+    public synchronized void relogin(long seenLogins) throws IOException {
+        if (logins == seenLogins) {
+            login();
+        }
+    }
+
+    public synchronized void logout() throws IOException {
+        if (!loggedIn) {
+            return;
+        }
+        loggedIn = false;
+        final Request request = new Request.Builder()
+                .url(httpServer + "/logout")
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{}"))
+                .build();
+        try (Response response = UltipaConnection.HTTP_CLIENT.newCall(request).execute()) {
+            UltipaConnection.assertSuccess(response);
+        }
+    }
+
+    private boolean expired() {
+        return TTL_NANOS > 0 && System.nanoTime() - loggedInAt > TTL_NANOS;
+    }
+
+    private void login() throws IOException {
+        loggedIn = false;
+        final String json = UltipaConnection.GSON.toJson(
+                ImmutableMap.of("ip", host, "port", port, "username", username, "password", password));
+        final Request request = new Request.Builder()
+                .url(httpServer + "/login")
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json))
+                .build();
+        try (Response response = UltipaConnection.HTTP_CLIENT.newCall(request).execute()) {
+            UltipaConnection.assertSuccess(response);
+        }
+        logins++;
+        loggedInAt = System.nanoTime();
+        loggedIn = true;
+    }
+}
@@ -0,0 +1,170 @@
+package ldbc.finbench.acid.ultipa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// A UQL query parsed once into literal and parameter segments. A parameter is '$' followed by the longest run of
+// identifier characters, so $account1Id and $account1 are different parameters. Values are rendered by type:
+// numbers and booleans as they are, strings quoted and escaped, collections as lists and maps as objects.
+// Parameters that have no value are kept in the query as written.
+public final class UqlTemplate {
+
+    // the scenarios use a few dozen distinct queries, the bound only guards against queries built by concatenation
+    private static final int MAX_CACHED = 1024;
+    private static final ConcurrentMap<String, UqlTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final String text;
+    // literals[i] is followed by parameters[i], the last literal has no parameter
+    private final String[] literals;
+    private final String[] parameters;
+
+    private UqlTemplate(String text, String[] literals, String[] parameters) {
+        this.text = text;
+        this.literals = literals;
+        this.parameters = parameters;
+    }
+
+    public static UqlTemplate of(String text) {
+        final UqlTemplate template = CACHE.get(text);
+        if (template != null) {
+            return template;
+        }
+        final UqlTemplate compiled = compile(text);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(text, compiled);
+        }
+        return compiled;
+    }
+
+    static UqlTemplate compile(String text) {
+        final List<String> literals = new ArrayList<>();
+        final List<String> parameters = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) == '$') {
+                int end = i + 1;
+                while (end < text.length() && isIdentifierChar(text.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1) {
+                    literals.add(text.substring(start, i));
+                    parameters.add(text.substring(i + 1, end));
+                    start = end;
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        literals.add(text.substring(start));
+        return new UqlTemplate(text, literals.toArray(new String[0]), parameters.toArray(new String[0]));
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String render(Map<String, ?> queryParameters) {
+        if (parameters.length == 0 || queryParameters.isEmpty()) {
+            return text;
+        }
+        final StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        for (int i = 0; i < parameters.length; i++) {
+            sb.append(literals[i]);
+            final String name = parameters[i];
+            if (queryParameters.containsKey(name)) {
+                appendValue(sb, queryParameters.get(name));
+            } else {
+                sb.append('$').append(name);
+            }
+        }
+        sb.append(literals[parameters.length]);
+        return sb.toString();
+    }
+
+    static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            sb.append(((Number) value).longValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            appendString(sb, value.toString());
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            final Iterator<?> it = ((Collection<?>) value).iterator();
+            while (it.hasNext()) {
+                appendValue(sb, it.next());
+                if (it.hasNext()) {
+                    sb.append(',');
+                }
+            }
+            sb.append(']');
+        } else if (value instanceof long[]) {
+            final long[] values = (long[]) value;
+            sb.append('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(values[i]);
+            }
+            sb.append(']');
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append(e.getKey()).append(':');
+                appendValue(sb, e.getValue());
+            }
+            sb.append('}');
+        } else {
+            throw new IllegalArgumentException("unsupported UQL parameter type: " + value.getClass().getName());
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -6,7 +6,12 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import ldbc.finbench.acid.driver.SleepCalibration;
 import ldbc.finbench.acid.driver.TestDriver;
+import ldbc.finbench.acid.transactions.Interleaver;
 import ldbc.finbench.acid.transactions.TransactionThread;
 import org.junit.After;
 import org.junit.Assert;
@@ -18,6 +23,15 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
     protected TTestDriver testDriver;
     protected ExecutorService executorService = Executors.newFixedThreadPool(8);
     boolean printStackTrace = true;
+    // runs the scenarios with a control point (sleepTime) in rounds of a fixed interleaving instead of sleeping
+    protected boolean interleave = Boolean.parseBoolean(System.getProperty("acid.interleave", "true"));
+    // every test runs in its own namespace of account ids, so tests do not need to nuke the database
+    private static final AtomicLong nextNamespace = new AtomicLong(1);
+    // the sleep time of each driver class, calibrated once from its round-trip latency unless -Dacid.sleep=<millis>
+    // is given
+    private static final Map<Class<?>, Long> sleepTimes = new HashMap<>();
+    // how long the scenarios sleep (or at most wait for the conflicting transactions of a round) to overlap them
+    protected long sleepTime;
 
     public AcidTest(TTestDriver testDriver) {
         this.testDriver = testDriver;
@@ -25,17 +39,45 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
 
     @Before
     public void initialize() {
-        try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        testDriver.setNamespace(nextNamespace.getAndIncrement());
+        // removes leftovers of a previous run that used the same namespace
+        testDriver.nukeNamespace();
+        sleepTime = sleepTime(testDriver);
+    }
+
+    private static long sleepTime(TestDriver<?, ?, ?> testDriver) {
+        final String sleep = System.getProperty("acid.sleep", "auto");
+        if (!"auto".equals(sleep)) {
+            return Long.parseLong(sleep);
         }
-        testDriver.nukeDatabase();
-        try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        synchronized (sleepTimes) {
+            return sleepTimes.computeIfAbsent(testDriver.getClass(), driverClass -> {
+                final SleepCalibration calibration = SleepCalibration.calibrate(testDriver);
+                System.out.println("Calibrated " + driverClass.getSimpleName() + ": " + calibration);
+                return calibration.getSleepMillis();
+            });
+        }
+    }
+
+    protected long id(long localId) {
+        return testDriver.id(localId);
+    }
+
+    // Runs the clients concurrently, or in interleaved rounds: the paused clients of a round stop at the control point
+    // of their scenario until the other clients of the round executed (at most the sleep time), then finish.
+    protected List<Future<Map<String, Object>>> invokeAll(
+            List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients, IntUnaryOperator round,
+            IntPredicate paused) throws InterruptedException {
+        if (!interleave) {
+            return executorService.invokeAll(clients);
         }
+        final int[] rounds = new int[clients.size()];
+        final boolean[] pausedClients = new boolean[clients.size()];
+        for (int i = 0; i < clients.size(); i++) {
+            rounds[i] = round.applyAsInt(i);
+            pausedClients[i] = paused.test(i);
+        }
+        return Interleaver.invokeAll(executorService, clients, rounds, pausedClients, sleepTime);
     }
 
     public void printStackTrace(Exception e) {
@@ -50,13 +92,15 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
 
         final int nTransactions = 50;
         int aborted = 0;
+        // only the accounts touched by this run are checked
+        final Map<String, Object> accountRange = ImmutableMap.of("minId", id(1), "maxId", id(2 + nTransactions));
 
-        Map<String, Object> committed = new HashMap<>(testDriver.atomicityCheck());
+        Map<String, Object> committed = new HashMap<>(testDriver.atomicityCheck(accountRange));
         Map<String, Object> parameters = new HashMap<>();
 
         for (int i = 0; i < nTransactions; i++) {
-            parameters.put("account1Id", 1L);
-            parameters.put("account2Id", 3 + i);
+            parameters.put("account1Id", id(1));
+            parameters.put("account2Id", id(3 + i));
             parameters.put("newTrans", 200 + i);
             try {
                 testDriver.atomicityC(parameters);
@@ -69,7 +113,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         }
         System.out.printf("AtomicityCTest: Number of aborted transactions: %d\n", aborted);
 
-        Map<String, Object> results = testDriver.atomicityCheck();
+        Map<String, Object> results = testDriver.atomicityCheck(accountRange);
         Assert.assertEquals((long) committed.get("numAccounts"), (long) results.get("numAccounts"));
         Assert.assertEquals((long) committed.get("numNames"), (long) results.get("numNames"));
         Assert.assertEquals((long) committed.get("numTransferred"), (long) results.get("numTransferred"));
@@ -83,14 +127,16 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
 
         final int nTransactions = 50;
         int aborted = 0;
+        // only the accounts touched by this run are checked
+        final Map<String, Object> accountRange = ImmutableMap.of("minId", id(1), "maxId", id(2 + nTransactions));
 
-        Map<String, Object> committed = new HashMap<>(testDriver.atomicityCheck());
+        Map<String, Object> committed = new HashMap<>(testDriver.atomicityCheck(accountRange));
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("account1Id", 1L);
+        parameters.put("account1Id", id(1));
         parameters.put("newTrans", 200L);
 
         for (int i = 0; i < nTransactions; i++) {
-            parameters.put("account2Id", i % 2 == 0 ? 2 : 3 + i);
+            parameters.put("account2Id", id(i % 2 == 0 ? 2 : 3 + i));
             boolean successful;
             try {
                 successful = testDriver.atomicityRB(parameters);
@@ -108,7 +154,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
 
         System.out.printf("AtomicityRbTest: Number of aborted transactions: %d\n", aborted);
 
-        Map<String, Object> results = testDriver.atomicityCheck();
+        Map<String, Object> results = testDriver.atomicityCheck(accountRange);
         Assert.assertEquals((long) committed.get("numAccounts"), (long) results.get("numAccounts"));
         Assert.assertEquals((long) committed.get("numNames"), (long) results.get("numNames"));
         Assert.assertEquals((long) committed.get("numTransferred"), (long) results.get("numTransferred"));
@@ -126,7 +172,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 1; i <= wc; i++) {
             clients.add(new TransactionThread<>(i, testDriver::g0,
-                    ImmutableMap.of("account1Id", 1L, "account2Id", 2L, "transactionId", i)));
+                    ImmutableMap.of("account1Id", id(1), "account2Id", id(2), "transactionId", i)));
         }
 
         final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
@@ -140,7 +186,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         }
         System.out.printf("G0Test: Number of aborted transactions: %d\n", aborted);
 
-        Map<String, Object> results = testDriver.g0check(ImmutableMap.of("account1Id", 1L, "account2Id", 2L));
+        Map<String, Object> results = testDriver.g0check(ImmutableMap.of("account1Id", id(1), "account2Id", id(2)));
         if (results.containsKey("a1VersionHistory")) {
             final List<Long> a1VersionHistory = new ArrayList<>((List<Long>) results.get("a1VersionHistory"));
             final List<Long> tVersionHistory = new ArrayList<>((List<Long>) results.get("tVersionHistory"));
@@ -177,18 +223,19 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         int abortedR = 0;
         int numAnomaly = 0;
 
-        long expected = (long) testDriver.g1aR(ImmutableMap.of("accountId", 1L)).get("aBalance");
+        long expected = (long) testDriver.g1aR(ImmutableMap.of("accountId", id(1))).get("aBalance");
 
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 0; i < wc; i++) {
-            clients.add(
-                    new TransactionThread<>(i, testDriver::g1aW, ImmutableMap.of("accountId", 1L, "sleepTime", 250L)));
+            clients.add(new TransactionThread<>(i, testDriver::g1aW,
+                    ImmutableMap.of("accountId", id(1), "sleepTime", sleepTime)));
         }
         for (int i = 0; i < rc; i++) {
-            clients.add(new TransactionThread<>(i, testDriver::g1aR, ImmutableMap.of("accountId", 1L)));
+            clients.add(new TransactionThread<>(i, testDriver::g1aR, ImmutableMap.of("accountId", id(1))));
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        // each reader reads while a writer has written but not yet aborted
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, i -> i % wc, i -> i < wc);
 
         for (int i = 0; i < wc; i++) {
             try {
@@ -234,10 +281,10 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 0; i < wc; i++) {
             clients.add(new TransactionThread<>(i, testDriver::g1bW,
-                    ImmutableMap.of("accountId", 1L, "even", even, "odd", odd, "sleepTime", 1L)));
+                    ImmutableMap.of("accountId", id(1), "even", even, "odd", odd, "sleepTime", 1L)));
         }
         for (int i = 0; i < rc; i++) {
-            clients.add(new TransactionThread<>(i, testDriver::g1bR, ImmutableMap.of("accountId", 1L)));
+            clients.add(new TransactionThread<>(i, testDriver::g1bR, ImmutableMap.of("accountId", id(1))));
         }
 
         final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
@@ -282,8 +329,8 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         final Random random = new Random();
         for (long i = 1; i <= c; i++) {
             final boolean order = random.nextBoolean();
-            long account1Id = order ? 1L : 2L;
-            long account2Id = order ? 2L : 1L;
+            long account1Id = id(order ? 1 : 2);
+            long account2Id = id(order ? 2 : 1);
             clients.add(new TransactionThread<>(i, testDriver::g1c,
                     ImmutableMap.of("account1Id", account1Id, "account2Id", account2Id, "transactionId", i)));
         }
@@ -343,15 +390,16 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 0; i < c * 2; i++) {
             if (i % 2 == 0) {
-                clients.add(new TransactionThread<>(i, testDriver::impW, ImmutableMap.of("accountId", 1L)));
+                clients.add(new TransactionThread<>(i, testDriver::impW, ImmutableMap.of("accountId", id(1))));
             } else {
                 clients.add(
                         new TransactionThread<>(i, testDriver::impR,
-                                ImmutableMap.of("accountId", 1L, "sleepTime", 250L)));
+                                ImmutableMap.of("accountId", id(1), "sleepTime", sleepTime)));
             }
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        // each reader reads before and after a writer commits
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, i -> i / 2, i -> i % 2 == 1);
 
         for (int i = 0; i < c * 2; i++) {
             try {
@@ -394,14 +442,15 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
             if (i % 2 == 0) {
                 clients.add(
                         new TransactionThread<>(i, testDriver::pmpW,
-                                ImmutableMap.of("account1Id", 1L, "account2Id", 2L)));
+                                ImmutableMap.of("account1Id", id(1), "account2Id", id(2))));
             } else {
                 clients.add(new TransactionThread<>(i, testDriver::pmpR,
-                        ImmutableMap.of("account1Id", 1L, "account2Id", 2L, "sleepTime", 250L)));
+                        ImmutableMap.of("account1Id", id(1), "account2Id", id(2), "sleepTime", sleepTime)));
             }
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        // each reader reads before and after a writer commits
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, i -> i / 2, i -> i % 2 == 1);
         int i = 0;
         for (Future<Map<String, Object>> future : futures) {
             try {
@@ -443,12 +492,19 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         clients.add(new TransactionThread<>(0, testDriver::otvW, ImmutableMap.of("cycleSize", 4)));
         Random random = new Random();
+        // interleaved, every round is a writer and the readers that read before and after it
+        final int readersPerRound = 7;
         for (int i = 0; i < rc; i++) {
+            if (interleave && i > 0 && i % readersPerRound == 0) {
+                clients.add(new TransactionThread<>(i, testDriver::otvW, ImmutableMap.of("cycleSize", 4)));
+            }
             clients.add(new TransactionThread<>(i, testDriver::otvR,
-                    ImmutableMap.of("accountId", random.nextInt(4) + 1, "sleepTime", 250L)));
+                    ImmutableMap.of("accountId", id(random.nextInt(4) + 1), "sleepTime", sleepTime)));
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        final IntUnaryOperator round = i -> i / (readersPerRound + 1);
+        final IntPredicate paused = i -> i % (readersPerRound + 1) != 0;
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, round, paused);
         for (Future<Map<String, Object>> future : futures) {
             try {
                 final Map<String, Object> results = future.get();
@@ -481,15 +537,16 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 0; i < c * 2; i++) {
             if (i % 2 == 0) {
-                clients.add(new TransactionThread<>(i, testDriver::frW, ImmutableMap.of("accountId", 1L)));
+                clients.add(new TransactionThread<>(i, testDriver::frW, ImmutableMap.of("accountId", id(1))));
             } else {
                 clients.add(
                         new TransactionThread<>(i, testDriver::frR,
-                                ImmutableMap.of("accountId", 1L, "sleepTime", 250L)));
+                                ImmutableMap.of("accountId", id(1), "sleepTime", sleepTime)));
             }
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        // each reader reads before and after a writer commits
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, i -> i / 2, i -> i % 2 == 1);
         int abortedW = 0;
         int abortedR = 0;
         int i = 0;
@@ -532,7 +589,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         for (int i = 0; i < nTransactions; i++) {
             clients.add(new TransactionThread<>(i, testDriver::luW,
-                    ImmutableMap.of("account1Id", 1L, "account2Id", (i + 2L))));
+                    ImmutableMap.of("account1Id", id(1), "account2Id", id(i + 2))));
         }
         final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
         for (Future<Map<String, Object>> future : futures) {
@@ -544,7 +601,7 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
             }
         }
 
-        Map<String, Object> results = testDriver.luR(ImmutableMap.of("accountId", 1L));
+        Map<String, Object> results = testDriver.luR(ImmutableMap.of("accountId", id(1)));
         final long numTransferProp = (long) results.get("numTransferProp");
         final long numTransferEdges = (long) results.get("numTransferEdges");
         final boolean pass = ((nTransactions - aborted == numTransferProp)
@@ -567,15 +624,19 @@ public abstract class AcidTest<TTestDriver extends TestDriver> {
         List<TransactionThread<Map<String, Object>, Map<String, Object>>> clients = new ArrayList<>();
         Random random = new Random();
 
+        long account1Id = 0;
         for (int i = 0; i < wc; i++) {
-            // account1Id indices range from 1 to 2*numAccountPairs+1
-            long account1Id = random.nextInt(numAccountPairs) * 2 + 1;
+            // account1Id indices range from 1 to 2*numAccountPairs+1; interleaved, two writers of a round share a pair
+            if (!interleave || i % 2 == 0) {
+                account1Id = id(random.nextInt(numAccountPairs) * 2 + 1);
+            }
             long account2Id = account1Id + 1;
             clients.add(new TransactionThread<>(i, testDriver::wsW,
-                    ImmutableMap.of("account1Id", account1Id, "account2Id", account2Id, "sleepTime", 250L)));
+                    ImmutableMap.of("account1Id", account1Id, "account2Id", account2Id, "sleepTime", sleepTime)));
         }
 
-        final List<Future<Map<String, Object>>> futures = executorService.invokeAll(clients);
+        // both writers of a round check the constraint before either withdraws
+        final List<Future<Map<String, Object>>> futures = invokeAll(clients, i -> i / 2, i -> true);
         int aborted = 0;
         for (Future<Map<String, Object>> future : futures) {
             try {
@@ -1,6 +1,8 @@
 package ldbc.finbench.acid;
 
 import ldbc.finbench.acid.ultipa.UltipaDriver;
+import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 
 public class UltipaAcidTest extends AcidTest<UltipaDriver> {
@@ -13,4 +15,13 @@ public class UltipaAcidTest extends AcidTest<UltipaDriver> {
     @BeforeClass
     public static void setUp() {
     }
+
+    @AfterClass
+    public static void tearDown() {
+        final String httpMetrics = UltipaDriver.getHttpMetricsReport();
+        if (httpMetrics != null) {
+            System.out.print(httpMetrics);
+        }
+        Assert.assertEquals("Ultipa transactions that were not closed", 0, UltipaDriver.getLeakedTransactions());
+    }
 }
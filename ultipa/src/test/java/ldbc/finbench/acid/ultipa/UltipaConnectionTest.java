@@ -0,0 +1,289 @@
+package ldbc.finbench.acid.ultipa;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+// Runs UltipaConnection and UltipaDriver against the in-process gateway stub.
+public class UltipaConnectionTest {
+
+    private UltipaGatewayStub gateway;
+
+    @Before
+    public void startGateway() throws Exception {
+        gateway = new UltipaGatewayStub();
+    }
+
+    @After
+    public void stopGateway() {
+        gateway.close();
+    }
+
+    private UltipaConnection connection() {
+        return new UltipaConnection(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+    }
+
+    @Test
+    public void transactionsShareOneLogin() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            final UltipaConnection tt = connection();
+            tt.connect();
+            tt.begin();
+            Assert.assertTrue(tt.run("find().nodes() as n return n").isOk());
+            tt.commit();
+            tt.close();
+        }
+        Assert.assertEquals(1, gateway.getRequests("/login"));
+        Assert.assertEquals(10, gateway.getRequests("/transaction/start"));
+        Assert.assertEquals(10, gateway.getRequests("/transaction/close"));
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+
+    @Test
+    public void closeRollsBackOpenTransaction() throws Exception {
+        final UltipaConnection tt = connection();
+        tt.connect();
+        tt.begin();
+        tt.close();
+        tt.close();
+        Assert.assertEquals(1, gateway.getRequests("/transaction/rollback"));
+        Assert.assertEquals(1, gateway.getRequests("/transaction/close"));
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+
+    @Test
+    public void rejectedCommitThrows() throws Exception {
+        gateway.rejectCommits();
+        final UltipaConnection tt = connection();
+        tt.connect();
+        tt.begin();
+        try {
+            tt.commit();
+            Assert.fail("the commit was rejected");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        Assert.assertEquals(1, gateway.getRequests("/transaction/close"));
+
+        final UltipaConnection async = connection();
+        async.beginAsync().get();
+        try {
+            async.commitAsync().get();
+            Assert.fail("the commit was rejected");
+        } catch (ExecutionException e) {
+            // expected
+        }
+        Assert.assertEquals(2, gateway.getRequests("/transaction/close"));
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+
+    @Test
+    public void onlyRequestsOutsideTransactionsAreRetriedAfterLogin() throws Exception {
+        final UltipaConnection tt = connection();
+        tt.connect();
+        tt.begin();
+        gateway.expireSession();
+        Assert.assertFalse(tt.run("find().nodes() as n return n").isOk());
+        Assert.assertEquals(1, gateway.getRequests("/transaction/run"));
+        Assert.assertEquals(2, gateway.getRequests("/login"));
+        tt.close();
+
+        gateway.expireSession();
+        final UltipaConnection retried = connection();
+        retried.begin();
+        Assert.assertTrue(retried.run("find().nodes() as n return n").isOk());
+        retried.commit();
+        Assert.assertEquals(3, gateway.getRequests("/transaction/start"));
+        Assert.assertEquals(3, gateway.getRequests("/login"));
+    }
+
+    @Test
+    public void concurrentRejectionsLogInOnce() throws Exception {
+        connection().connect();
+        gateway.expireSession();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<UltipaResultSet>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> connection().run("find().nodes() as n return n")));
+        }
+        for (Future<UltipaResultSet> result : results) {
+            Assert.assertTrue(result.get().isOk());
+        }
+        executor.shutdown();
+        Assert.assertEquals(2, gateway.getRequests("/login"));
+    }
+
+    @Test
+    public void parametersAreBoundByName() {
+        connection().run("find().nodes({_id == $account1Id || _id == $account1}) as n return n.name, $name",
+                ImmutableMap.of("account1", 1L, "account1Id", 2L, "name", "O'Neil \"Jr\""));
+        Assert.assertEquals("find().nodes({_id == 2 || _id == 1}) as n return n.name, \"O'Neil \\\"Jr\\\"\"",
+                gateway.getQueries().get(0));
+    }
+
+    @Test
+    public void decodesRequestedAliases() {
+        gateway.respond("as a return", ImmutableMap.of(
+                "balance", ImmutableList.of(99),
+                "history", ImmutableList.of(ImmutableList.of(1, 2, 3)),
+                "name", ImmutableList.of("Alice")));
+        final UltipaResultSet result = connection().run("find().nodes() as a return a.balance AS balance",
+                ImmutableMap.of(), "balance", "history");
+        Assert.assertTrue(result.isOk());
+        Assert.assertEquals(99, result.aliasAsLong("balance"));
+        Assert.assertArrayEquals(new long[] {1, 2, 3}, result.aliasListAsLongArray("history"));
+        Assert.assertTrue(result.isEmpty("name"));
+    }
+
+    @Test
+    public void idsReadAsStringsAreRenderedAsNumbers() throws Exception {
+        gateway.respond("as internalAId", ImmutableMap.of("internalAId", ImmutableList.of("4294967297")));
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        driver.g1aW(ImmutableMap.of("accountId", 4294967297L, "sleepTime", 0L));
+        Assert.assertTrue(gateway.getQueries().contains(
+                "update().nodes({@account && _id == 4294967297}).set({balance:200})"));
+        driver.close();
+    }
+
+    @Test
+    public void asyncStatementsArePipelined() throws Exception {
+        gateway.setLatencyMillis(50);
+        final UltipaConnection tt = connection();
+        tt.connect();
+        tt.beginAsync().get();
+        final long start = System.nanoTime();
+        final List<Future<UltipaResultSet>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(tt.runAsync("insert().into(@account).nodes({_id: $id})", ImmutableMap.of("id", i)));
+        }
+        for (Future<UltipaResultSet> result : results) {
+            Assert.assertTrue(result.get().isOk());
+        }
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        tt.commitAsync().get();
+        Assert.assertTrue("10 statements took " + millis + " ms", millis < 10 * 50);
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+
+    @Test
+    public void batchFallsBackToTransaction() {
+        gateway.setBatchSupported(false).fail("broken", "syntax error");
+        final List<UltipaResultSet> results = connection().runBatch(ImmutableList.of("ok", "broken", "not run"));
+        Assert.assertEquals(2, results.size());
+        Assert.assertFalse(results.get(1).isOk());
+        Assert.assertEquals(1, gateway.getRequests("/transaction/batch"));
+        Assert.assertEquals(1, gateway.getRequests("/transaction/rollback"));
+        Assert.assertEquals(0, gateway.getRequests("/transaction/commit"));
+
+        connection().runBatch(ImmutableList.of("ok"));
+        Assert.assertEquals(1, gateway.getRequests("/transaction/batch"));
+        Assert.assertEquals(1, gateway.getRequests("/transaction/commit"));
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+
+    @Test
+    public void failedBatchRequestsFail() throws Exception {
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        gateway.failBatches();
+        try {
+            driver.runBatch(ImmutableList.of("ok", "ok"));
+            Assert.fail("the gateway answered the batch with 500");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // a batch is not retried in the new session: it is tied to its transaction
+        gateway.expireSession();
+        try {
+            driver.runBatch(ImmutableList.of("ok"));
+            Assert.fail("the gateway answered the batch with 401");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(2, gateway.getRequests("/transaction/batch"));
+        Assert.assertEquals(0, gateway.getRequests("/transaction/commit"));
+        driver.close();
+    }
+
+    @Test
+    public void nukeDatabaseRebuildsSchemaOnce() throws Exception {
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        driver.nukeDatabase();
+        driver.nukeDatabase();
+        Assert.assertEquals(2, gateway.getRequests("/transaction/batch"));
+        Assert.assertEquals(UltipaSchema.FINBENCH.statements().size() + 2, gateway.getQueries().size());
+        driver.close();
+    }
+
+    @Test
+    public void nukeDatabaseRebuildsSchemaThatFailed() throws Exception {
+        gateway.fail("drop()", "schema does not exist").fail("'balance'", "property exists");
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        for (int i = 0; i < 2; i++) {
+            try {
+                driver.nukeDatabase();
+                Assert.fail("the statements that create the balance properties failed");
+            } catch (IllegalStateException e) {
+                // the failed drops are expected on a new database and not reported
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("'balance'"));
+                Assert.assertFalse(e.getMessage(), e.getMessage().contains("drop()"));
+            }
+        }
+        // the schema was not marked applied, so the second nuke rebuilt it
+        Assert.assertEquals(2 * (UltipaSchema.FINBENCH.statements().size() + 1), gateway.getQueries().size());
+        driver.close();
+    }
+
+    @Test
+    public void nukeNamespaceDeletesItsIdRange() throws Exception {
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        driver.nukeDatabase();
+        driver.setNamespace(2);
+        driver.nukeNamespace();
+        final List<String> queries = gateway.getQueries();
+        Assert.assertEquals("delete().nodes({_id >= 8589934592 && _id <= 12884901887})",
+                queries.get(queries.size() - 1));
+        driver.close();
+    }
+
+    // -Dultipa.minThroughput=100 asserts a lower bound in tx/s on the throughput of the client, by default it is only
+    // reported: the bound depends on the host
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("ultipa.minThroughput", "0"));
+
+    // Throughput of short write transactions with a few clients, to catch regressions in the client.
+    @Test
+    public void throughput() throws Exception {
+        final UltipaDriver driver = new UltipaDriver(gateway.getUrl(), "127.0.0.1", 60061, "root", "root");
+        final int clients = 8;
+        final int transactions = 500;
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        final long start = System.nanoTime();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            futures.add(executor.submit(() -> driver.impW(ImmutableMap.of("accountId", 1L))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        final String report = String.format("%d impW transactions with %d clients: %.0f tx/s", transactions, clients,
+                transactions / seconds);
+        System.out.println(report);
+        // each transaction is one batch request to the in-process stub, which answers in well under a millisecond;
+        // the client sustains several hundred transactions per second, far fewer is a regression
+        Assert.assertTrue(report, transactions / seconds >= MIN_THROUGHPUT);
+        Assert.assertEquals(transactions, gateway.getRequests("/transaction/batch"));
+        Assert.assertEquals(0, gateway.getOpenTransactions());
+    }
+}
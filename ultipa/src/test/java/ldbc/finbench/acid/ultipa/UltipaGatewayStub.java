@@ -0,0 +1,270 @@
+package ldbc.finbench.acid.ultipa;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process stand-in for the Ultipa HTTP gateway, so that UltipaConnection and UltipaDriver can be tested and
+// benchmarked without a database. It implements /login, /logout, /connection/run, /transaction/start, run, commit,
+// rollback, close and (optionally) batch. Queries are not executed: a query gets the canned response of the first
+// fragment it contains, or an empty successful response.
+public class UltipaGatewayStub implements AutoCloseable {
+
+    static {
+        // the server writes headers and body separately, with Nagle's algorithm every response waits for the
+        // delayed ACK of the client (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Canned> canned = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final Set<String> openTransactions = ConcurrentHashMap.newKeySet();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextTransactionId = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile boolean batchSupported = true;
+    private volatile boolean sessionExpired;
+    private volatile boolean commitsRejected;
+    private volatile boolean batchesFailed;
+
+    public UltipaGatewayStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // delay of every response, to emulate the round trip to a remote gateway
+    public UltipaGatewayStub setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    // without batch support /transaction/batch answers 404 like older gateways
+    public UltipaGatewayStub setBatchSupported(boolean batchSupported) {
+        this.batchSupported = batchSupported;
+        return this;
+    }
+
+    // Rejects every request with 401 until the client logs in again.
+    public UltipaGatewayStub expireSession() {
+        this.sessionExpired = true;
+        return this;
+    }
+
+    // Answers every commit with 500, as when the gateway fails to commit.
+    public UltipaGatewayStub rejectCommits() {
+        this.commitsRejected = true;
+        return this;
+    }
+
+    // Answers every batch with 500 and an error body without results, as when the gateway fails internally.
+    public UltipaGatewayStub failBatches() {
+        this.batchesFailed = true;
+        return this;
+    }
+
+    // Queries that contain the fragment return the given values, one list of row values per alias.
+    public UltipaGatewayStub respond(String fragment, Map<String, List<?>> valuesByAlias) {
+        final JsonObject items = new JsonObject();
+        for (Map.Entry<String, List<?>> e : valuesByAlias.entrySet()) {
+            final JsonObject entity = new JsonObject();
+            entity.add("values", UltipaConnection.GSON.toJsonTree(e.getValue()));
+            final JsonArray entities = new JsonArray();
+            entities.add(entity);
+            final JsonObject item = new JsonObject();
+            item.addProperty("alias", e.getKey());
+            item.addProperty("type", "ATTR");
+            item.add("entities", entities);
+            items.add(e.getKey(), item);
+        }
+        canned.add(new Canned(fragment, response("SUCCESS", "", items)));
+        return this;
+    }
+
+    // Queries that contain the fragment fail with the given message.
+    public UltipaGatewayStub fail(String fragment, String message) {
+        canned.add(new Canned(fragment, response("FAILED", message, new JsonObject())));
+        return this;
+    }
+
+    public long getRequests(String path) {
+        final AtomicLong count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    // transactions that were started and not closed yet
+    public int getOpenTransactions() {
+        return openTransactions.size();
+    }
+
+    // the queries received so far, in order of arrival
+    public List<String> getQueries() {
+        return queries;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, k -> new AtomicLong()).incrementAndGet();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (sessionExpired && !"/login".equals(path)) {
+                send(exchange, 401, new JsonObject());
+                return;
+            }
+            switch (path) {
+                case "/login":
+                    sessionExpired = false;
+                    send(exchange, 200, new JsonObject());
+                    break;
+                case "/logout":
+                    send(exchange, 200, new JsonObject());
+                    break;
+                case "/transaction/start":
+                    final String transactionId = "tx" + nextTransactionId.incrementAndGet();
+                    openTransactions.add(transactionId);
+                    final JsonObject started = new JsonObject();
+                    started.addProperty("data", transactionId);
+                    send(exchange, 200, started);
+                    break;
+                case "/transaction/run":
+                case "/connection/run":
+                    send(exchange, 200, run(body(exchange).get("uql").getAsString()));
+                    break;
+                case "/transaction/commit":
+                    send(exchange, commitsRejected ? 500 : 200, new JsonObject());
+                    break;
+                case "/transaction/rollback":
+                    send(exchange, 200, new JsonObject());
+                    break;
+                case "/transaction/close":
+                    openTransactions.remove(queryParameter(exchange, "transactionId"));
+                    send(exchange, 200, new JsonObject());
+                    break;
+                case "/transaction/batch":
+                    if (!batchSupported) {
+                        send(exchange, 404, new JsonObject());
+                        break;
+                    }
+                    if (batchesFailed) {
+                        send(exchange, 500, response("FAILED", "internal error", new JsonObject()));
+                        break;
+                    }
+                    final JsonObject request = body(exchange);
+                    final boolean stopOnError = !request.has("stopOnError")
+                            || request.get("stopOnError").getAsBoolean();
+                    final JsonArray results = new JsonArray();
+                    for (JsonElement uql : request.getAsJsonArray("uqls")) {
+                        final JsonObject result = run(uql.getAsString());
+                        results.add(result);
+                        if (stopOnError && !"SUCCESS".equals(
+                                result.getAsJsonObject("status").get("errorCode").getAsString())) {
+                            break;
+                        }
+                    }
+                    final JsonObject batch = new JsonObject();
+                    batch.add("data", results);
+                    send(exchange, 200, batch);
+                    break;
+                default:
+                    send(exchange, 404, new JsonObject());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private JsonObject run(String uql) {
+        queries.add(uql);
+        for (Canned c : canned) {
+            if (uql.contains(c.fragment)) {
+                return c.response;
+            }
+        }
+        return response("SUCCESS", "", new JsonObject());
+    }
+
+    private static JsonObject response(String errorCode, String message, JsonObject items) {
+        final JsonObject status = new JsonObject();
+        status.addProperty("errorCode", errorCode);
+        status.addProperty("msg", message);
+        final JsonObject response = new JsonObject();
+        response.add("status", status);
+        response.add("items", items);
+        return response;
+    }
+
+    private static JsonObject body(HttpExchange exchange) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return UltipaConnection.GSON.fromJson(reader, JsonObject.class);
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        final String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                final int eq = parameter.indexOf('=');
+                if (eq > 0 && parameter.substring(0, eq).equals(name)) {
+                    return parameter.substring(eq + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int code, JsonObject body) throws IOException {
+        final byte[] bytes = UltipaConnection.GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class Canned {
+        private final String fragment;
+        private final JsonObject response;
+
+        Canned(String fragment, JsonObject response) {
+            this.fragment = fragment;
+            this.response = response;
+        }
+    }
+}